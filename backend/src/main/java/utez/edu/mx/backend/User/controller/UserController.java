@@ -7,6 +7,8 @@ import utez.edu.mx.backend.User.model.UpdateStatusRequest;
 import utez.edu.mx.backend.User.model.User;
 import utez.edu.mx.backend.User.model.UserRepository;
 import utez.edu.mx.backend.auth.controller.UserResponse;
+import utez.edu.mx.backend.auth.service.AuthenticatedPrincipalCache;
+import utez.edu.mx.backend.notification.service.AdminRecipientCache;
 
 import java.util.List;
 
@@ -15,6 +17,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
     private final UserRepository userRepository;
+    private final AdminRecipientCache adminRecipientCache;
+    private final AuthenticatedPrincipalCache principalCache;
 
     @GetMapping("/role/{role}")
     public ResponseEntity<List<UserResponse>> getUsersByRole(@PathVariable User.Role role) {
@@ -35,6 +39,9 @@ public class UserController {
 
         user.setStatus(request.status());
         User saved = userRepository.save(user);
+        adminRecipientCache.upsert(saved);
+        // Las peticiones siguientes del usuario vuelven a validarse contra la base de datos
+        principalCache.evictUser(saved.getId());
 
         return ResponseEntity.ok(UserResponse.fromEntity(saved));
     }
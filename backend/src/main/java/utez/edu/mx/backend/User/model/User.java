@@ -4,6 +4,7 @@ package utez.edu.mx.backend.User.model;
 import jakarta.persistence.*;
 import lombok.*;
 import utez.edu.mx.backend.auth.repository.Token;
+import utez.edu.mx.backend.hotel.model.CollectionChangeListener;
 
 import java.util.List;
 
@@ -12,6 +13,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(CollectionChangeListener.class)
 @Table(name = "users")
 public class User {
     @Id
@@ -1,7 +1,12 @@
 package utez.edu.mx.backend.User.model;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import utez.edu.mx.backend.notification.dto.NotificationRecipient;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,4 +14,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     List<User> findByRole(User.Role role);
 
+    @Query("select new utez.edu.mx.backend.notification.dto.NotificationRecipient(u.id, u.email, u.fcmToken) " +
+            "from User u where u.role = :role")
+    List<NotificationRecipient> findRecipientsByRole(@Param("role") User.Role role);
+
+    @Modifying
+    @Query("update User u set u.fcmToken = null where u.fcmToken in :tokens")
+    int clearFcmTokens(@Param("tokens") Collection<String> tokens);
+
 }
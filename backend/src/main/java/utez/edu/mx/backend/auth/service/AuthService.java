@@ -1,5 +1,6 @@
 package utez.edu.mx.backend.auth.service;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,6 +17,7 @@ import utez.edu.mx.backend.auth.controller.TokenResponse;
 import utez.edu.mx.backend.auth.controller.UserResponse;
 import utez.edu.mx.backend.auth.repository.Token;
 import utez.edu.mx.backend.auth.repository.TokenRespository;
+import utez.edu.mx.backend.notification.service.AdminRecipientCache;
 
 import java.util.List;
 
@@ -28,6 +30,8 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final AuthenticatedPrincipalCache principalCache;
+    private final AdminRecipientCache adminRecipientCache;
     private  UserResponse userResponse;
 
     public TokenResponse register(RegisterRequest request){
@@ -43,6 +47,7 @@ public class AuthService {
         var jwtToken = jwtService.generateToken(user);
         var refreshToken = jwtService.generateRefreshToken(user);
         savedUserToken(savedUser, jwtToken);
+        adminRecipientCache.upsert(savedUser);
         log.info("Usuario registrado exitosamente: {}", savedUser.getEmail());
         return new TokenResponse(jwtToken, refreshToken, UserResponse.fromEntity(savedUser));
     }
@@ -60,6 +65,7 @@ public class AuthService {
         var jwtToken = jwtService.generateToken(user);
         var refreshToken = jwtService.generateRefreshToken(user);
         savedUserToken(savedUser, jwtToken);
+        adminRecipientCache.upsert(savedUser);
         log.info("Camarera registrada exitosamente: {}", savedUser.getEmail());
         return new TokenResponse(jwtToken, refreshToken, UserResponse.fromEntity(savedUser));
     }
@@ -105,6 +111,7 @@ public class AuthService {
             tokenRespository.saveAll(validUserTokens);
             log.info("Tokens revocados para: {}. Total: {}", user.getEmail(), validUserTokens.size());
         }
+        principalCache.evictUser(user.getId());
     }
 
     public TokenResponse refreshToken(final String authHeader){
@@ -115,7 +122,8 @@ public class AuthService {
         }
 
         final String refreshToken = authHeader.substring(7);
-        final String userEmail = jwtService.extractUsername(refreshToken);
+        final Claims claims = jwtService.extractClaims(refreshToken);
+        final String userEmail = claims.getSubject();
 
         if(userEmail == null){
             log.error("No se pudo extraer el email del token de actualización.");
@@ -125,7 +133,7 @@ public class AuthService {
         final User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new UsernameNotFoundException(userEmail));
 
-        if(!jwtService.isTokenValid(refreshToken, user)){
+        if(!jwtService.isTokenValid(claims, user)){
             log.warn("Token de actualización inválido para el usuario: {}", userEmail);
             throw new IllegalArgumentException("Invalid Refresh token");
         }
@@ -150,13 +158,18 @@ public class AuthService {
         foundToken.setExpired(true);
         foundToken.setRevoked(true);
         tokenRespository.save(foundToken);
+        principalCache.evict(jwtToken);
         log.info("Cierre de sesión exitoso para el usuario: {}", foundToken.getUser().getEmail());
     }
 
-    public void updateFcmToken(User user, String fcmToken) {
-        log.info("Actualizando token FCM para el usuario: {}", user.getEmail());
+    public void updateFcmToken(User principal, String fcmToken) {
+        log.info("Actualizando token FCM para el usuario: {}", principal.getEmail());
+        // El principal solo trae datos de identidad; se recarga para no sobrescribir el resto del usuario
+        User user = userRepository.findById(principal.getId())
+                .orElseThrow(() -> new UsernameNotFoundException(principal.getEmail()));
         user.setFcmToken(fcmToken);
         userRepository.save(user);
+        adminRecipientCache.upsert(user);
         log.info("Token FCM actualizado exitosamente para: {}", user.getEmail());
     }
 
@@ -0,0 +1,121 @@
+package utez.edu.mx.backend.auth.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import utez.edu.mx.backend.User.model.User;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché en memoria de principales ya autenticados, indexada por el hash del JWT.
+ * Evita consultar tokens y usuarios en la base de datos en cada petición.
+ * Guarda una copia inmutable de los datos de identidad, nunca la entidad: cada petición
+ * recibe su propio User y las escrituras deben recargar el usuario desde la base de datos.
+ */
+@Slf4j
+@Service
+public class AuthenticatedPrincipalCache {
+
+    private final Map<String, CachedPrincipal> entries = new ConcurrentHashMap<>();
+
+    @Value("${application.security.jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${application.security.jwt.cache.ttl-ms:300000}")
+    private long ttlMillis;
+
+    public record CachedPrincipal(
+            Long userId,
+            String email,
+            String name,
+            User.Role role,
+            Collection<? extends GrantedAuthority> authorities,
+            long expiresAtMillis
+    ) {
+        boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+
+        /**
+         * Usuario nuevo con los datos de identidad, exclusivo de la petición que lo pide
+         */
+        public User toUser() {
+            return User.builder()
+                    .id(userId)
+                    .email(email)
+                    .name(name)
+                    .role(role)
+                    .build();
+        }
+    }
+
+    /**
+     * Obtiene el principal asociado al token si sigue vigente en la caché
+     */
+    public CachedPrincipal get(String jwtToken) {
+        String key = hash(jwtToken);
+        CachedPrincipal cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Guarda el principal validado. La entrada nunca sobrevive a la expiración del propio JWT.
+     */
+    public void put(String jwtToken, User user, Collection<? extends GrantedAuthority> authorities,
+                    long tokenExpiresAtMillis) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxSize) {
+            evictExpired(now);
+            if (entries.size() >= maxSize) {
+                log.debug("Caché de autenticación llena ({} entradas), se omite el registro", entries.size());
+                return;
+            }
+        }
+        long expiresAt = Math.min(now + ttlMillis, tokenExpiresAtMillis);
+        entries.put(hash(jwtToken), new CachedPrincipal(user.getId(), user.getEmail(), user.getName(),
+                user.getRole(), List.copyOf(authorities), expiresAt));
+    }
+
+    /**
+     * Invalida un token concreto (logout)
+     */
+    public void evict(String jwtToken) {
+        entries.remove(hash(jwtToken));
+    }
+
+    /**
+     * Invalida todos los tokens en caché de un usuario (revocación masiva o cambio de sus datos)
+     */
+    public void evictUser(Long userId) {
+        entries.values().removeIf(cached -> cached.userId().equals(userId));
+    }
+
+    private void evictExpired(long now) {
+        entries.values().removeIf(cached -> cached.isExpired(now));
+    }
+
+    private String hash(String jwtToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(jwtToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package utez.edu.mx.backend.auth.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import utez.edu.mx.backend.User.model.User;
@@ -21,14 +23,27 @@ public class JwtService {
     @Value("${application.security.jwt.refresh-token-expiration-time}")
     private long refreshExpiration;
 
+    // La llave y el parser son inmutables y seguros entre hilos: se construyen una sola vez
+    private SecretKey signInKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        signInKey = getSingInKey();
+        jwtParser = Jwts.parser()
+                .verifyWith(signInKey)
+                .build();
+    }
+
+    /**
+     * Verifica la firma y la expiración del token una sola vez y devuelve sus claims
+     */
+    public Claims extractClaims(final String token) {
+        return jwtParser.parseSignedClaims(token).getPayload();
+    }
 
     public String extractUsername(final String token) {
-        final Claims jwtToken = Jwts.parser()
-                .verifyWith(getSingInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return jwtToken.getSubject();
+        return extractClaims(token).getSubject();
     }
 
     public String generateToken(final User user) {
@@ -46,27 +61,25 @@ public class JwtService {
                 .subject(user.getEmail())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSingInKey())
+                .signWith(signInKey)
                 .compact();
 
     }
 
     public boolean isTokenValid(final String token, final User user) {
-        final String username = extractUsername(token);
-        return (username.equals(user.getEmail()) && !isTokenExpired(token));
+        return isTokenValid(extractClaims(token), user);
+    }
+
+    public boolean isTokenValid(final Claims claims, final User user) {
+        return (claims.getSubject().equals(user.getEmail()) && !isTokenExpired(claims));
     }
 
-    private boolean isTokenExpired(final String token) {
-        return extractExpiration(token).before(new Date());
+    private boolean isTokenExpired(final Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
-    private Date extractExpiration(final String token) {
-        final Claims jwtToken = Jwts.parser()
-                .verifyWith(getSingInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return jwtToken.getExpiration();
+    public Date extractExpiration(final String token) {
+        return extractClaims(token).getExpiration();
     }
 
     private SecretKey getSingInKey() {
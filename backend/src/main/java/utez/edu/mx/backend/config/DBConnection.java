@@ -1,9 +1,10 @@
 package utez.edu.mx.backend.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 import javax.sql.DataSource;
 
@@ -25,15 +26,66 @@ public class DBConnection {
     @Value("${db.pass}")
     private String pass;
 
-    @Bean
-    public DataSource getDBConnection() {
-        DriverManagerDataSource source = new DriverManagerDataSource();
-        source.setDriverClassName("com.mysql.cj.jdbc.Driver");
+    @Value("${db.pool.min-idle:5}")
+    private int minIdle;
+
+    @Value("${db.pool.max-size:20}")
+    private int maxPoolSize;
+
+    @Value("${db.pool.connection-timeout-ms:30000}")
+    private long connectionTimeout;
+
+    @Value("${db.pool.validation-timeout-ms:5000}")
+    private long validationTimeout;
+
+    @Value("${db.pool.idle-timeout-ms:600000}")
+    private long idleTimeout;
+
+    @Value("${db.pool.max-lifetime-ms:1800000}")
+    private long maxLifetime;
+
+    @Value("${db.pool.leak-detection-threshold-ms:60000}")
+    private long leakDetectionThreshold;
+
+    @Value("${db.pool.prep-stmt-cache-size:250}")
+    private int prepStmtCacheSize;
+
+    @Value("${db.pool.prep-stmt-cache-sql-limit:2048}")
+    private int prepStmtCacheSqlLimit;
+
+    @Bean(destroyMethod = "close")
+    public DataSource getDBConnection(DataSourcePoolMetrics poolMetrics) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("hotel-pool");
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
         // jdbc:mysql://localhost:3306/adj-demo
-        source.setUrl("jdbc:mysql://" + host + ":" + port + "/" + name);
-        source.setUsername(user);
-        source.setPassword(pass);
-        return source;
+        config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + name);
+        config.setUsername(user);
+        config.setPassword(pass);
+
+        // Tamaño del pool y validación de conexiones
+        config.setMinimumIdle(minIdle);
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setConnectionTimeout(connectionTimeout);
+        config.setValidationTimeout(validationTimeout);
+        config.setIdleTimeout(idleTimeout);
+        config.setMaxLifetime(maxLifetime);
+        config.setLeakDetectionThreshold(leakDetectionThreshold);
+
+        // Caché de sentencias preparadas en el driver de MySQL
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(prepStmtCacheSize));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(prepStmtCacheSqlLimit));
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("cacheResultSetMetadata", "true");
+        config.addDataSourceProperty("cacheServerConfiguration", "true");
+        config.addDataSourceProperty("elideSetAutoCommits", "true");
+        config.addDataSourceProperty("maintainTimeStats", "false");
+        // Reescribe los lotes JDBC como INSERT multi-fila (asignaciones masivas)
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+
+        config.setMetricsTrackerFactory(poolMetrics);
+        return new HikariDataSource(config);
     }
 
 }
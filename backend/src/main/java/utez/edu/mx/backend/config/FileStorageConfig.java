@@ -1,5 +1,6 @@
 package utez.edu.mx.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
@@ -15,6 +16,10 @@ public class FileStorageConfig {
 
     private final String uploadDir = "/opt/hotel-backend/images";
 
+    // Temporales del multipart; en el mismo volumen que uploadDir para moverlos sin copiar
+    @Value("${spring.servlet.multipart.location}")
+    private String multipartTempDir;
+
     @PostConstruct
     public void init() {
         try {
@@ -24,6 +29,7 @@ public class FileStorageConfig {
                 Files.createDirectories(uploadPath);
                 System.out.println("✓ Directorio de imágenes creado: " + uploadPath.toAbsolutePath());
             }
+            Files.createDirectories(Paths.get(multipartTempDir));
         } catch (IOException e) {
             throw new RuntimeException("No se pudo crear el directorio de almacenamiento de imágenes", e);
         }
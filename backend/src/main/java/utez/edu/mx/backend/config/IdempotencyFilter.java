@@ -0,0 +1,237 @@
+package utez.edu.mx.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import utez.edu.mx.backend.User.model.User;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Repite la respuesta original de los POST que llegan con la misma Idempotency-Key.
+ * La huella incluye método, ruta y hash del cuerpo: reutilizar la llave con otro contenido responde 422.
+ * Se registra en la cadena de seguridad después de JwtAuthFilter porque la llave se
+ * aísla por usuario; no es un @Component para que no se registre también antes de la seguridad.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private static final List<String> IDEMPOTENT_PATHS = List.of(
+            "/api/cleanings",
+            "/api/incidents",
+            "/api/room-assignments"
+    );
+
+    private final IdempotencyStore idempotencyStore;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return IDEMPOTENT_PATHS.stream().noneMatch(prefix -> path.equals(prefix) || path.startsWith(prefix + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH
+                || authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            // Sin usuario autenticado la petición sigue su curso y la seguridad la rechaza
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest processedRequest = request;
+        String bodyHash;
+        try {
+            if (isMultipart(request)) {
+                bodyHash = multipartHash(request);
+            } else {
+                CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+                bodyHash = hash(cachedRequest.body);
+                processedRequest = cachedRequest;
+            }
+        } catch (IllegalStateException | ServletException e) {
+            // Multipart inválido o demasiado grande: el manejo normal de la petición responde el error
+            log.debug("No se pudo leer el cuerpo para la Idempotency-Key {}: {}", idempotencyKey, e.getMessage());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String fingerprint = request.getMethod() + " " + request.getRequestURI() + " " + bodyHash;
+        IdempotencyStore.Reservation reservation = idempotencyStore.reserve(user.getId(), idempotencyKey, fingerprint);
+
+        if (reservation.status() == IdempotencyStore.Reservation.Status.EXISTING) {
+            IdempotencyStore.Entry existing = reservation.existing();
+            if (!existing.fingerprint().equals(fingerprint)) {
+                log.warn("Idempotency-Key {} reutilizada por el usuario {} con otra operación o contenido ({} {})",
+                        idempotencyKey, user.getEmail(), request.getMethod(), request.getRequestURI());
+                response.sendError(HttpStatus.UNPROCESSABLE_CONTENT.value(),
+                        "La Idempotency-Key ya se usó para otra operación o con otro contenido");
+            } else if (!existing.isCompleted()) {
+                response.sendError(HttpStatus.CONFLICT.value(),
+                        "La petición original con esta Idempotency-Key sigue en proceso");
+            } else {
+                log.debug("Respuesta repetida para Idempotency-Key {} del usuario {}", idempotencyKey, user.getEmail());
+                replay(existing.response(), response);
+            }
+            return;
+        }
+        if (reservation.status() == IdempotencyStore.Reservation.Status.NOT_RESERVED) {
+            filterChain.doFilter(processedRequest, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(processedRequest, wrapper);
+            // Los errores del servidor no se guardan para que el reintento vuelva a intentarlo
+            if (wrapper.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                idempotencyStore.complete(user.getId(), idempotencyKey, new IdempotencyStore.StoredResponse(
+                        wrapper.getStatus(), wrapper.getContentType(), wrapper.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyStore.release(user.getId(), idempotencyKey);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private boolean isMultipart(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/");
+    }
+
+    /**
+     * Hash de las partes de un multipart (nombre, archivo y contenido). Las partes ya están en disco
+     * y el contenedor las conserva para el controlador, así que el cuerpo no se carga en memoria.
+     */
+    private String multipartHash(HttpServletRequest request) throws IOException, ServletException {
+        MessageDigest digest = newDigest();
+        for (Part part : request.getParts()) {
+            digest.update(part.getName().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (part.getSubmittedFileName() != null) {
+                digest.update(part.getSubmittedFileName().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            try (InputStream in = new DigestInputStream(part.getInputStream(), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private String hash(byte[] body) {
+        return HexFormat.of().formatHex(newDigest().digest(body));
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Petición con el cuerpo ya leído, para calcular su hash y entregarlo intacto al controlador
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? encoding : StandardCharsets.UTF_8.name()));
+        }
+    }
+
+    private void replay(IdempotencyStore.StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+}
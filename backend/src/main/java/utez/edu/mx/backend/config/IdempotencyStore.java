@@ -0,0 +1,146 @@
+package utez.edu.mx.backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Almacén en memoria, acotado y con TTL, de las respuestas a peticiones con Idempotency-Key.
+ * Permite responder los reintentos sin volver a tocar la base de datos ni FCM.
+ * Cuando se llena (en total o por usuario) descarta las respuestas completadas más antiguas;
+ * nunca rechaza llaves nuevas, así un solo usuario no puede desactivar la idempotencia de los demás.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    // Orden de inserción: la primera entrada es la más antigua. Todo el estado se protege con el monitor
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private final Map<Long, Integer> entriesPerUser = new HashMap<>();
+
+    @Value("${hotel.idempotency.max-size:5000}")
+    private int maxSize;
+
+    @Value("${hotel.idempotency.max-per-user:500}")
+    private int maxPerUser;
+
+    @Value("${hotel.idempotency.ttl-ms:86400000}")
+    private long ttlMillis;
+
+    public record StoredResponse(int status, String contentType, byte[] body) {}
+
+    /**
+     * Estado de una llave: response es null mientras la petición original sigue en curso
+     */
+    public record Entry(Long userId, String fingerprint, StoredResponse response, long expiresAtMillis) {
+        boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+
+        public boolean isCompleted() {
+            return response != null;
+        }
+    }
+
+    /**
+     * Resultado de intentar reservar una llave. existing solo se informa con EXISTING.
+     */
+    public record Reservation(Status status, Entry existing) {
+        public enum Status {
+            // La llave quedó reservada para esta petición
+            RESERVED,
+            // La llave ya existía (en curso o completada); no se reservó nada
+            EXISTING,
+            // Todas las entradas que se podrían descartar siguen en curso: la petición se procesa
+            // sin idempotencia y no debe completarse
+            NOT_RESERVED
+        }
+    }
+
+    /**
+     * Reserva la llave del usuario para una petición nueva. Si ya existe devuelve la entrada previa
+     * y no reserva nada; si no hay sitio descarta primero las respuestas completadas más antiguas.
+     */
+    public synchronized Reservation reserve(Long userId, String idempotencyKey, String fingerprint) {
+        long now = System.currentTimeMillis();
+        String key = key(userId, idempotencyKey);
+        Entry existing = entries.get(key);
+        if (existing != null && !existing.isExpired(now)) {
+            return new Reservation(Reservation.Status.EXISTING, existing);
+        }
+        if (existing != null) {
+            remove(key);
+        }
+
+        // Primero el límite del usuario, para que sus llaves desplacen solo sus propias respuestas
+        if ((entriesPerUser.getOrDefault(userId, 0) >= maxPerUser && !evictOldest(userId, now))
+                || (entries.size() >= maxSize && !evictOldest(null, now))) {
+            log.warn("Almacén de idempotencia sin entradas completadas que descartar ({} entradas), " +
+                    "la petición del usuario {} se procesa sin registrar la llave", entries.size(), userId);
+            return new Reservation(Reservation.Status.NOT_RESERVED, null);
+        }
+
+        entries.put(key, new Entry(userId, fingerprint, null, now + ttlMillis));
+        entriesPerUser.merge(userId, 1, Integer::sum);
+        return new Reservation(Reservation.Status.RESERVED, null);
+    }
+
+    /**
+     * Guarda la respuesta de la petición original para repetirla en los reintentos.
+     * Solo reemplaza una reserva en curso.
+     */
+    public synchronized void complete(Long userId, String idempotencyKey, StoredResponse response) {
+        long now = System.currentTimeMillis();
+        entries.computeIfPresent(key(userId, idempotencyKey), (k, entry) -> entry.isCompleted()
+                ? entry
+                : new Entry(entry.userId(), entry.fingerprint(), response, now + ttlMillis));
+    }
+
+    /**
+     * Libera la llave cuando la petición original falló y el cliente debe poder reintentar
+     */
+    public synchronized void release(Long userId, String idempotencyKey) {
+        String key = key(userId, idempotencyKey);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isCompleted()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Descarta la entrada más antigua que ya venció o está completada, del usuario indicado
+     * o de cualquiera si es null. Las reservas en curso nunca se descartan.
+     */
+    private boolean evictOldest(Long userId, long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if ((userId == null || userId.equals(entry.userId())) && (entry.isCompleted() || entry.isExpired(now))) {
+                iterator.remove();
+                decrementUser(entry.userId());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            decrementUser(removed.userId());
+        }
+    }
+
+    private void decrementUser(Long userId) {
+        entriesPerUser.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private String key(Long userId, String idempotencyKey) {
+        return userId + ":" + idempotencyKey;
+    }
+}
@@ -1,5 +1,6 @@
 package utez.edu.mx.backend.config;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,6 +9,7 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -18,9 +20,11 @@ import utez.edu.mx.backend.User.model.User;
 import utez.edu.mx.backend.User.model.UserRepository;
 import utez.edu.mx.backend.auth.repository.Token;
 import utez.edu.mx.backend.auth.repository.TokenRespository;
+import utez.edu.mx.backend.auth.service.AuthenticatedPrincipalCache;
 import utez.edu.mx.backend.auth.service.JwtService;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Optional;
 
 @Component
@@ -31,6 +35,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private final UserDetailsService userDetailsService;
     private final TokenRespository tokenRespository;
     private final UserRepository userrepository;
+    private final AuthenticatedPrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(
@@ -56,21 +61,31 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         final String jwtToken = authHeader.substring(7);
-        final String userEmail = jwtService.extractUsername(jwtToken);
+        // Se verifica la firma una sola vez; subject y expiración salen del mismo Claims
+        final Claims claims = jwtService.extractClaims(jwtToken);
+        final String userEmail = claims.getSubject();
 
         if (userEmail == null || SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        // 3) Validar que el token exista y no esté revocado/expirado
+        // 3) Si el token ya fue validado recientemente, autenticar sin consultar la base de datos
+        final AuthenticatedPrincipalCache.CachedPrincipal cached = principalCache.get(jwtToken);
+        if (cached != null && userEmail.equals(cached.email())) {
+            authenticate(request, cached.toUser(), cached.authorities());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // 4) Validar que el token exista y no esté revocado/expirado
         final Token token = tokenRespository.findByToken(jwtToken).orElse(null);
         if (token == null || token.isExpired() || token.isRevoked()) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        // 4) Cargar usuario
+        // 5) Cargar usuario
         final UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
         final Optional<User> user = userrepository.findByEmail(userDetails.getUsername());
         if (user.isEmpty()) {
@@ -78,22 +93,29 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             return;
         }
 
-        final boolean isTokenValid = jwtService.isTokenValid(jwtToken, user.get());
+        final boolean isTokenValid = jwtService.isTokenValid(claims, user.get());
         if (!isTokenValid) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        // 5) Autenticar en el contexto de seguridad
+        // 6) Autenticar en el contexto de seguridad y recordar el principal
+        authenticate(request, user.get(), userDetails.getAuthorities());
+        principalCache.put(jwtToken, user.get(), userDetails.getAuthorities(),
+                claims.getExpiration().getTime());
+
+        // 7) Continuar la cadena
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request, User user,
+                              Collection<? extends GrantedAuthority> authorities) {
         final var authToken = new UsernamePasswordAuthenticationToken(
-                user.get(),  // Usar el objeto User en lugar de UserDetails
+                user,  // Usar el objeto User en lugar de UserDetails
                 null,
-                userDetails.getAuthorities()
+                authorities
         );
         authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authToken);
-
-        // 6) Continuar la cadena
-        filterChain.doFilter(request, response);
     }
 }
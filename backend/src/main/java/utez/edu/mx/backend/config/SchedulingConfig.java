@@ -0,0 +1,10 @@
+package utez.edu.mx.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Separado de la clase principal para que las pruebas por capas (@DataJpaTest) no arranquen las tareas programadas
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,5 +1,6 @@
 package utez.edu.mx.backend.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,6 +22,7 @@ public class SecurityConfig {
     private final JwtAuthFilter jwtAuthFilter;
     private final AuthenticationProvider authenticationProvider;
     private final CorsConfigurationSource corsConfigurationSource;
+    private final IdempotencyStore idempotencyStore;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -30,7 +32,9 @@ public class SecurityConfig {
                 .formLogin(AbstractHttpConfigurer::disable)
                 .httpBasic(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(req ->
-                        req.requestMatchers("/auth/**", "/error", "/api/incidents/images/**")
+                        // Los dispatch asíncronos (streams SSE) ya se autorizaron en la petición original
+                        req.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                                .requestMatchers("/auth/**", "/error", "/api/incidents/images/**")
                                 .permitAll()
                                 .requestMatchers("/api/**")
                                 .authenticated()
@@ -40,6 +44,8 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider)
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // Después de autenticar: las Idempotency-Key se aíslan por usuario
+                .addFilterAfter(new IdempotencyFilter(idempotencyStore), JwtAuthFilter.class)
                 .logout(AbstractHttpConfigurer::disable);
         return http.build();
     }
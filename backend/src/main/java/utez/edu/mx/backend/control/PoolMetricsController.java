@@ -0,0 +1,23 @@
+package utez.edu.mx.backend.control;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import utez.edu.mx.backend.config.DataSourcePoolMetrics;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class PoolMetricsController {
+
+    private final DataSourcePoolMetrics poolMetrics;
+
+    @GetMapping("api/metrics/db-pool")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPoolMetrics() {
+        return ResponseEntity.ok(poolMetrics.snapshot());
+    }
+}
@@ -5,8 +5,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import utez.edu.mx.backend.hotel.dto.BulkCleaningScheduleRequest;
+import utez.edu.mx.backend.hotel.dto.BulkCleaningScheduleResponse;
 import utez.edu.mx.backend.hotel.dto.HotelSettingsRequest;
 import utez.edu.mx.backend.hotel.dto.HotelSettingsResponse;
+import utez.edu.mx.backend.hotel.service.CollectionVersionService;
 import utez.edu.mx.backend.hotel.service.HotelSettingsService;
 
 @RestController
@@ -14,10 +18,15 @@ import utez.edu.mx.backend.hotel.service.HotelSettingsService;
 @RequiredArgsConstructor
 public class HotelSettingsController {
     private final HotelSettingsService hotelSettingsService;
+    private final CollectionVersionService collectionVersionService;
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CAMARERA')")
-    public ResponseEntity<HotelSettingsResponse> getSettings() {
+    public ResponseEntity<HotelSettingsResponse> getSettings(WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.SETTINGS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(hotelSettingsService.getSettings());
     }
 
@@ -26,4 +35,12 @@ public class HotelSettingsController {
     public ResponseEntity<HotelSettingsResponse> updateSettings(@Valid @RequestBody HotelSettingsRequest request) {
         return ResponseEntity.ok(hotelSettingsService.updateSettings(request));
     }
+
+    @PutMapping("/cleaning-schedule")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BulkCleaningScheduleResponse> updateCleaningSchedule(
+            @Valid @RequestBody BulkCleaningScheduleRequest request
+    ) {
+        return ResponseEntity.ok(hotelSettingsService.updateCleaningSchedule(request));
+    }
 }
@@ -1,55 +1,114 @@
 package utez.edu.mx.backend.hotel.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import utez.edu.mx.backend.hotel.dto.CreateIncidentRequest;
+import utez.edu.mx.backend.hotel.dto.IncidentPageResponse;
 import utez.edu.mx.backend.hotel.dto.IncidentResponse;
+import utez.edu.mx.backend.hotel.dto.PhotoLayoutMigrationResponse;
 import utez.edu.mx.backend.hotel.dto.UpdateIncidentStatusRequest;
 import utez.edu.mx.backend.hotel.model.Incident;
-import utez.edu.mx.backend.hotel.service.FileStorageService;
+import utez.edu.mx.backend.hotel.service.CollectionVersionService;
+import utez.edu.mx.backend.hotel.service.ImageVariantService;
 import utez.edu.mx.backend.hotel.service.IncidentService;
+import utez.edu.mx.backend.hotel.service.PhotoLayoutMigrationService;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/incidents")
 @RequiredArgsConstructor
 public class IncidentController {
+    private static final Duration IMAGE_CACHE_MAX_AGE = Duration.ofDays(365);
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
     private final IncidentService incidentService;
-    private final FileStorageService fileStorageService;
+    private final CollectionVersionService collectionVersionService;
+    private final ImageVariantService imageVariantService;
+    private final PhotoLayoutMigrationService photoLayoutMigrationService;
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CAMARERA')")
-    public ResponseEntity<List<IncidentResponse>> getAllIncidents() {
+    public ResponseEntity<List<IncidentResponse>> getAllIncidents(WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.INCIDENTS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(incidentService.getAllIncidents());
     }
 
+    /**
+     * Búsqueda paginada por cursor. Para la siguiente página se envía cursor = nextCursor de la respuesta.
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CAMARERA')")
+    public ResponseEntity<IncidentPageResponse> searchIncidents(
+            @RequestParam(required = false) Incident.IncidentStatus status,
+            @RequestParam(required = false) Long roomId,
+            @RequestParam(required = false) String floor,
+            @RequestParam(required = false) Long reportedBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest
+    ) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.INCIDENTS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok(incidentService.searchIncidents(status, roomId, floor, reportedBy, from, to, cursor, size));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CAMARERA')")
-    public ResponseEntity<IncidentResponse> getIncidentById(@PathVariable Long id) {
+    public ResponseEntity<IncidentResponse> getIncidentById(@PathVariable Long id, WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.INCIDENTS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(incidentService.getIncidentById(id));
     }
 
     @GetMapping("/room/{roomId}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CAMARERA')")
-    public ResponseEntity<List<IncidentResponse>> getIncidentsByRoom(@PathVariable Long roomId) {
+    public ResponseEntity<List<IncidentResponse>> getIncidentsByRoom(@PathVariable Long roomId, WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.INCIDENTS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(incidentService.getIncidentsByRoom(roomId));
     }
 
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<List<IncidentResponse>> getIncidentsByStatus(@PathVariable Incident.IncidentStatus status) {
+    public ResponseEntity<List<IncidentResponse>> getIncidentsByStatus(@PathVariable Incident.IncidentStatus status, WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.INCIDENTS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(incidentService.getIncidentsByStatus(status));
     }
 
@@ -121,31 +180,80 @@ public class IncidentController {
 
     @GetMapping("/pending-sync")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<List<IncidentResponse>> getPendingSyncIncidents() {
+    public ResponseEntity<List<IncidentResponse>> getPendingSyncIncidents(WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.INCIDENTS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(incidentService.getPendingSyncIncidents());
     }
 
+    /**
+     * Mueve las fotos existentes a la estructura por subcarpetas y reescribe sus URL en lotes.
+     * Se puede ejecutar varias veces; las fotos ya migradas se omiten.
+     */
+    @PostMapping("/photos/migrate-layout")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<PhotoLayoutMigrationResponse> migratePhotoLayout() {
+        return ResponseEntity.ok(photoLayoutMigrationService.migrate());
+    }
+
     /**
      * Endpoint para servir imágenes de incidencias
      * Público para permitir visualización en etiquetas <img>
+     * Con size (píxeles del lado mayor) se sirve la variante más pequeña que lo cubre.
+     * Los nombres de archivo son únicos, así que la respuesta se cachea como inmutable.
      */
-    @GetMapping("/images/{roomFolder}/{filename:.+}")
+    @GetMapping({"/images/{roomFolder}/{filename:.+}", "/images/{roomFolder}/{shard1}/{shard2}/{filename:.+}"})
     public ResponseEntity<Resource> serveImage(
             @PathVariable String roomFolder,
-            @PathVariable String filename
+            @PathVariable(required = false) String shard1,
+            @PathVariable(required = false) String shard2,
+            @PathVariable String filename,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletRequest request,
+            WebRequest webRequest
     ) {
         try {
-            Path filePath = fileStorageService.loadFile(roomFolder + "/" + filename);
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                        .contentType(MediaType.IMAGE_JPEG) // Ajustar según tipo de archivo
-                        .body(resource);
-            } else {
+            String photoUrl = shard1 != null && shard2 != null
+                    ? String.join("/", roomFolder, shard1, shard2, filename)
+                    : roomFolder + "/" + filename;
+            ImageVariantService.ServedImage image = imageVariantService.resolve(photoUrl, size);
+            if (image == null) {
                 return ResponseEntity.notFound().build();
             }
+
+            Path filePath = image.path();
+            long lastModified = Files.getLastModifiedTime(filePath).toMillis();
+            long length = Files.size(filePath);
+            String etag = "\"" + filePath.getFileName() + "-" + length + "\"";
+            if (webRequest.checkNotModified(etag, lastModified)) {
+                return null;
+            }
+
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .contentType(image.type() != null
+                            ? MediaType.parseMediaType(image.type().getMimeType())
+                            : MediaType.APPLICATION_OCTET_STREAM)
+                    .cacheControl(image.immutable()
+                            ? CacheControl.maxAge(IMAGE_CACHE_MAX_AGE).cachePublic().immutable()
+                            // Variante aún en generación: revalidar pronto para recibirla
+                            : CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic());
+
+            // Sin Range, Tomcat envía el archivo con sendfile (del page cache al socket, sin copiar a la JVM)
+            if (range == null && HttpMethod.GET.matches(request.getMethod())
+                    && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+                request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, filePath.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+                request.setAttribute(SENDFILE_END_ATTRIBUTE, length);
+                return builder.contentLength(length).build();
+            }
+
+            // Con Range, Spring responde 206 con las regiones pedidas del FileSystemResource (lectura por FileChannel)
+            return builder.body(new FileSystemResource(filePath));
         } catch (IOException e) {
             return ResponseEntity.notFound().build();
         }
@@ -6,8 +6,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import utez.edu.mx.backend.hotel.dto.BulkRoomAssignmentRequest;
 import utez.edu.mx.backend.hotel.dto.RoomAssignmentRequest;
 import utez.edu.mx.backend.hotel.dto.RoomAssignmentResponse;
+import utez.edu.mx.backend.hotel.service.CollectionVersionService;
 import utez.edu.mx.backend.hotel.service.RoomAssignmentService;
 
 import java.util.List;
@@ -17,22 +20,35 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RoomAssignmentController {
     private final RoomAssignmentService roomAssignmentService;
+    private final CollectionVersionService collectionVersionService;
 
     @GetMapping
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<List<RoomAssignmentResponse>> getAllActiveAssignments() {
+    public ResponseEntity<List<RoomAssignmentResponse>> getAllActiveAssignments(WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.ASSIGNMENTS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(roomAssignmentService.getAllActiveAssignments());
     }
 
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CAMARERA')")
-    public ResponseEntity<List<RoomAssignmentResponse>> getAssignmentsByUserId(@PathVariable Long userId) {
+    public ResponseEntity<List<RoomAssignmentResponse>> getAssignmentsByUserId(@PathVariable Long userId, WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.ASSIGNMENTS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(roomAssignmentService.getAssignmentsByUserId(userId));
     }
 
     @GetMapping("/room/{roomId}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<List<RoomAssignmentResponse>> getAssignmentsByRoomId(@PathVariable Long roomId) {
+    public ResponseEntity<List<RoomAssignmentResponse>> getAssignmentsByRoomId(@PathVariable Long roomId, WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.ASSIGNMENTS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(roomAssignmentService.getAssignmentsByRoomId(roomId));
     }
 
@@ -43,6 +59,13 @@ public class RoomAssignmentController {
                 .body(roomAssignmentService.createAssignment(request));
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<List<RoomAssignmentResponse>> createAssignments(@Valid @RequestBody BulkRoomAssignmentRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(roomAssignmentService.createAssignments(request));
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<Void> deleteAssignment(@PathVariable Long id) {
@@ -3,13 +3,19 @@ package utez.edu.mx.backend.hotel.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import utez.edu.mx.backend.hotel.dto.RoomChangesResponse;
 import utez.edu.mx.backend.hotel.dto.RoomRequest;
 import utez.edu.mx.backend.hotel.dto.RoomResponse;
 import utez.edu.mx.backend.hotel.dto.UpdateRoomStatusRequest;
 import utez.edu.mx.backend.hotel.model.Room;
+import utez.edu.mx.backend.hotel.service.CollectionVersionService;
+import utez.edu.mx.backend.hotel.service.RoomEventService;
 import utez.edu.mx.backend.hotel.service.RoomService;
 
 import java.util.List;
@@ -19,28 +25,72 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RoomController {
     private final RoomService roomService;
+    private final RoomEventService roomEventService;
+    private final CollectionVersionService collectionVersionService;
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CAMARERA')")
-    public ResponseEntity<List<RoomResponse>> getAllRooms() {
+    public ResponseEntity<List<RoomResponse>> getAllRooms(WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.ROOMS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(roomService.getAllRooms());
     }
 
+    /**
+     * Habitaciones modificadas o eliminadas después de la versión since (sincronización incremental)
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CAMARERA')")
+    public ResponseEntity<RoomChangesResponse> getRoomChanges(@RequestParam(value = "since", required = false) Long since, WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.ROOMS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok(roomService.getRoomChanges(since));
+    }
+
+    /**
+     * Stream SSE de cambios de estado. Para reanudar se envía el último id recibido
+     * en el header Last-Event-ID o en el parámetro since.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CAMARERA')")
+    public SseEmitter streamRoomEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(value = "since", required = false) Long since
+    ) {
+        return roomEventService.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CAMARERA')")
-    public ResponseEntity<RoomResponse> getRoomById(@PathVariable Long id) {
+    public ResponseEntity<RoomResponse> getRoomById(@PathVariable Long id, WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.ROOMS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(roomService.getRoomById(id));
     }
 
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CAMARERA')")
-    public ResponseEntity<List<RoomResponse>> getRoomsByStatus(@PathVariable Room.RoomStatus status) {
+    public ResponseEntity<List<RoomResponse>> getRoomsByStatus(@PathVariable Room.RoomStatus status, WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.ROOMS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(roomService.getRoomsByStatus(status));
     }
 
     @GetMapping("/floor/{floor}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<List<RoomResponse>> getRoomsByFloor(@PathVariable String floor) {
+    public ResponseEntity<List<RoomResponse>> getRoomsByFloor(@PathVariable String floor, WebRequest webRequest) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Tracked.ROOMS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         return ResponseEntity.ok(roomService.getRoomsByFloor(floor));
     }
 
@@ -0,0 +1,23 @@
+package utez.edu.mx.backend.hotel.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import utez.edu.mx.backend.hotel.dto.OfflineSyncRequest;
+import utez.edu.mx.backend.hotel.dto.OfflineSyncResponse;
+import utez.edu.mx.backend.hotel.service.OfflineSyncService;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+    private final OfflineSyncService offlineSyncService;
+
+    @PostMapping
+    @PreAuthorize("hasAuthority('ROLE_CAMARERA')")
+    public ResponseEntity<OfflineSyncResponse> sync(@Valid @RequestBody OfflineSyncRequest request) {
+        return ResponseEntity.ok(offlineSyncService.sync(request));
+    }
+}
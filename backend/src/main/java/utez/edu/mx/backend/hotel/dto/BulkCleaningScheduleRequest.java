@@ -0,0 +1,15 @@
+package utez.edu.mx.backend.hotel.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalTime;
+import java.util.List;
+
+public record BulkCleaningScheduleRequest(
+        @NotNull(message = "La hora de limpieza es requerida")
+        LocalTime cleaningTime,
+
+        String floor,
+
+        List<Long> roomIds
+) {}
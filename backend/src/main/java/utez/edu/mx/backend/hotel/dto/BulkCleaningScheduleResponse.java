@@ -0,0 +1,9 @@
+package utez.edu.mx.backend.hotel.dto;
+
+import java.time.LocalTime;
+
+public record BulkCleaningScheduleResponse(
+        LocalTime cleaningTime,
+        String floor,
+        int updatedRooms
+) {}
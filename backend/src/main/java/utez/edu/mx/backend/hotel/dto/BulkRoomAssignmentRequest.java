@@ -0,0 +1,13 @@
+package utez.edu.mx.backend.hotel.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BulkRoomAssignmentRequest(
+        @NotEmpty(message = "Se requiere al menos una asignación")
+        @Size(max = 500, message = "No se pueden crear más de 500 asignaciones por petición")
+        List<@Valid RoomAssignmentRequest> assignments
+) {}
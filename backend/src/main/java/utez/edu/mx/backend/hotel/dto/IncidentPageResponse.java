@@ -0,0 +1,14 @@
+package utez.edu.mx.backend.hotel.dto;
+
+import java.util.List;
+
+/**
+ * Página de incidencias paginada por cursor (id descendente).
+ * nextCursor es null cuando no hay más resultados.
+ */
+public record IncidentPageResponse(
+        List<IncidentResponse> items,
+        Long nextCursor,
+        boolean hasMore
+) {
+}
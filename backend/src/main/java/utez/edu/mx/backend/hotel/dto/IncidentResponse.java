@@ -23,6 +23,22 @@ public record IncidentResponse(
         Instant syncedAt,
         List<String> photoUrls
 ) {
+    /**
+     * Constructor para proyecciones JPQL; las fotos se cargan aparte con una sola consulta IN
+     */
+    public IncidentResponse(Long id, Long roomId, String roomNumber, Long reportedByUserId, String reportedByUserName,
+                            String title, String description, Incident.IncidentStatus status, Instant createdAt,
+                            Instant updatedAt, Instant resolvedAt, Boolean isOffline, Boolean isSynced,
+                            Instant syncedAt) {
+        this(id, roomId, roomNumber, reportedByUserId, reportedByUserName, title, description, status, createdAt,
+                updatedAt, resolvedAt, isOffline, isSynced, syncedAt, List.of());
+    }
+
+    public IncidentResponse withPhotoUrls(List<String> photoUrls) {
+        return new IncidentResponse(id, roomId, roomNumber, reportedByUserId, reportedByUserName, title, description,
+                status, createdAt, updatedAt, resolvedAt, isOffline, isSynced, syncedAt, photoUrls);
+    }
+
     public static IncidentResponse fromEntity(Incident incident) {
         List<String> photoUrls = incident.getPhotos() != null
                 ? incident.getPhotos().stream()
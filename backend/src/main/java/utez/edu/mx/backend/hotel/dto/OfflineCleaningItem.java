@@ -0,0 +1,22 @@
+package utez.edu.mx.backend.hotel.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import utez.edu.mx.backend.hotel.model.Cleaning;
+
+import java.time.Instant;
+
+public record OfflineCleaningItem(
+        @NotBlank(message = "El ID de cliente es requerido")
+        @Size(max = 64, message = "El ID de cliente no puede exceder 64 caracteres")
+        String clientId,
+
+        @NotNull(message = "El ID de la habitación es requerido")
+        Long roomId,
+
+        @NotNull(message = "La fecha de limpieza es requerida")
+        Instant cleaningDatetime,
+
+        Cleaning.CleaningSource source
+) {}
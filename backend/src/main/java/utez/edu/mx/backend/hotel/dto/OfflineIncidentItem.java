@@ -0,0 +1,28 @@
+package utez.edu.mx.backend.hotel.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
+import java.util.List;
+
+public record OfflineIncidentItem(
+        @NotBlank(message = "El ID de cliente es requerido")
+        @Size(max = 64, message = "El ID de cliente no puede exceder 64 caracteres")
+        String clientId,
+
+        @NotNull(message = "El ID de la habitación es requerido")
+        Long roomId,
+
+        @NotBlank(message = "El título es requerido")
+        @Size(max = 150, message = "El título no puede exceder 150 caracteres")
+        String title,
+
+        String description,
+
+        @NotNull(message = "La fecha de reporte es requerida")
+        Instant reportedAt,
+
+        List<String> photoUrls
+) {}
@@ -0,0 +1,14 @@
+package utez.edu.mx.backend.hotel.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record OfflineSyncRequest(
+        @Size(max = 500, message = "No se pueden sincronizar más de 500 limpiezas por petición")
+        List<@Valid OfflineCleaningItem> cleanings,
+
+        @Size(max = 500, message = "No se pueden sincronizar más de 500 incidencias por petición")
+        List<@Valid OfflineIncidentItem> incidents
+) {}
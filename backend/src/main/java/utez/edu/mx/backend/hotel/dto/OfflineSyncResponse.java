@@ -0,0 +1,39 @@
+package utez.edu.mx.backend.hotel.dto;
+
+import java.util.List;
+
+/**
+ * Resultado por registro de una sincronización offline, en el mismo orden de la petición
+ */
+public record OfflineSyncResponse(
+        List<ItemResult> cleanings,
+        List<ItemResult> incidents
+) {
+    public enum ItemStatus {
+        // Insertado en esta petición
+        CREATED,
+        // Ya existía (reintento del dispositivo o repetido en el mismo lote)
+        DUPLICATE,
+        // No se pudo aplicar; ver error
+        REJECTED
+    }
+
+    public record ItemResult(
+            String clientId,
+            ItemStatus status,
+            Long serverId,
+            String error
+    ) {
+        public static ItemResult created(String clientId, Long serverId) {
+            return new ItemResult(clientId, ItemStatus.CREATED, serverId, null);
+        }
+
+        public static ItemResult duplicate(String clientId, Long serverId) {
+            return new ItemResult(clientId, ItemStatus.DUPLICATE, serverId, null);
+        }
+
+        public static ItemResult rejected(String clientId, String error) {
+            return new ItemResult(clientId, ItemStatus.REJECTED, null, error);
+        }
+    }
+}
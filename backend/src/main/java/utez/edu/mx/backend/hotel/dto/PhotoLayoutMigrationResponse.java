@@ -0,0 +1,12 @@
+package utez.edu.mx.backend.hotel.dto;
+
+/**
+ * Resumen de una ejecución de la migración a la estructura de carpetas por hash.
+ * missing cuenta las fotos cuyo archivo no existe en ninguna de las dos rutas; su URL no se modifica.
+ */
+public record PhotoLayoutMigrationResponse(
+        int scanned,
+        int migrated,
+        int alreadySharded,
+        int missing
+) {}
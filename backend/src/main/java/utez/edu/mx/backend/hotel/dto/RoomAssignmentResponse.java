@@ -1,5 +1,6 @@
 package utez.edu.mx.backend.hotel.dto;
 
+import utez.edu.mx.backend.hotel.model.Room;
 import utez.edu.mx.backend.hotel.model.RoomAssignment;
 
 import java.time.Instant;
@@ -18,6 +19,16 @@ public record RoomAssignmentResponse(
         Instant createdAt,
         Instant updatedAt
 ) {
+    /**
+     * Constructor para proyecciones JPQL (el estado llega como enum)
+     */
+    public RoomAssignmentResponse(Long id, Long roomId, String roomNumber, String floor, String barcodeValue,
+                                  Room.RoomStatus roomStatus, Long userId, String userName, String userEmail,
+                                  Boolean active, Instant createdAt, Instant updatedAt) {
+        this(id, roomId, roomNumber, floor, barcodeValue, roomStatus.toString(), userId, userName, userEmail,
+                active, createdAt, updatedAt);
+    }
+
     public static RoomAssignmentResponse fromEntity(RoomAssignment assignment) {
         return new RoomAssignmentResponse(
                 assignment.getId(),
@@ -0,0 +1,15 @@
+package utez.edu.mx.backend.hotel.dto;
+
+import java.util.List;
+
+/**
+ * Cambios de habitaciones desde la versión indicada por el cliente.
+ * Si fullSync es true, rooms contiene todas las habitaciones y el cliente debe reemplazar su copia.
+ * El cliente guarda version y la envía como since en la siguiente petición.
+ */
+public record RoomChangesResponse(
+        long version,
+        boolean fullSync,
+        List<RoomResponse> rooms,
+        List<Long> deletedRoomIds
+) {}
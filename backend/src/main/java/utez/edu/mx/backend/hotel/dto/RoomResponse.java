@@ -15,7 +15,8 @@ public record RoomResponse(
         LocalTime scheduledCleaningTime,
         String notes,
         Instant createdAt,
-        Instant updatedAt
+        Instant updatedAt,
+        Long changeVersion
 ) {
     public static RoomResponse fromEntity(Room room) {
         return new RoomResponse(
@@ -28,7 +29,8 @@ public record RoomResponse(
                 room.getScheduledCleaningTime(),
                 room.getNotes(),
                 room.getCreatedAt(),
-                room.getUpdatedAt()
+                room.getUpdatedAt(),
+                room.getChangeVersion()
         );
     }
 }
@@ -0,0 +1,18 @@
+package utez.edu.mx.backend.hotel.dto;
+
+import utez.edu.mx.backend.hotel.model.Room;
+
+import java.time.Instant;
+
+/**
+ * Cambio de estado de una habitación publicado en el stream /api/rooms/events.
+ * sequence es creciente y se usa como id del evento SSE para reanudar.
+ */
+public record RoomStatusEvent(
+        long sequence,
+        Long roomId,
+        String roomNumber,
+        String floor,
+        Room.RoomStatus status,
+        Instant changedAt
+) {}
@@ -0,0 +1,26 @@
+package utez.edu.mx.backend.hotel.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contador global con nombre. El UPDATE que lo incrementa bloquea la fila hasta el commit,
+ * así que las versiones se confirman en el mismo orden en que se asignan.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "change_counters")
+public class ChangeCounter {
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "counter_value", nullable = false)
+    private Long value;
+}
@@ -15,7 +15,9 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "cleanings")
+@Table(name = "cleanings", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_cleanings_user_client_id", columnNames = {"cleaned_by_user_id", "client_id"})
+})
 public class Cleaning {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -52,6 +54,10 @@ public class Cleaning {
     @Column(name = "created_at", updatable = false)
     private Instant createdAt;
 
+    // Id generado por el dispositivo para registros capturados sin conexión (deduplicación)
+    @Column(name = "client_id", length = 64)
+    private String clientId;
+
     public enum CleaningSource {
         SCAN, MANUAL
     }
@@ -0,0 +1,41 @@
+package utez.edu.mx.backend.hotel.model;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import utez.edu.mx.backend.User.model.User;
+import utez.edu.mx.backend.hotel.service.CollectionVersionService;
+
+/**
+ * Listener JPA que avisa a CollectionVersionService de cada alta, cambio o baja de entidades
+ * expuestas en listados con ETag. Los UPDATE masivos no pasan por aquí y avisan explícitamente.
+ */
+public class CollectionChangeListener {
+
+    private final CollectionVersionService collectionVersionService;
+
+    public CollectionChangeListener(CollectionVersionService collectionVersionService) {
+        this.collectionVersionService = collectionVersionService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        CollectionVersionService.Tracked tracked = null;
+        if (entity instanceof Room) {
+            tracked = CollectionVersionService.Tracked.ROOMS;
+        } else if (entity instanceof Incident || entity instanceof IncidentPhoto) {
+            tracked = CollectionVersionService.Tracked.INCIDENTS;
+        } else if (entity instanceof RoomAssignment) {
+            tracked = CollectionVersionService.Tracked.ASSIGNMENTS;
+        } else if (entity instanceof HotelSettings) {
+            tracked = CollectionVersionService.Tracked.SETTINGS;
+        } else if (entity instanceof User) {
+            tracked = CollectionVersionService.Tracked.USERS;
+        }
+        if (tracked != null) {
+            collectionVersionService.changed(tracked);
+        }
+    }
+}
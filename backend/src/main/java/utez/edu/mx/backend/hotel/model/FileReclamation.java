@@ -0,0 +1,59 @@
+package utez.edu.mx.backend.hotel.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Archivo o carpeta pendiente de borrar del almacenamiento de imágenes. Se inserta en la misma
+ * transacción que deja de referenciarlo y se borra del disco después del commit; si la transacción
+ * se revierte, el archivo sigue en su lugar.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "file_reclamations", indexes = {
+        @Index(name = "idx_file_reclamations_next_attempt", columnList = "next_attempt_at")
+})
+public class FileReclamation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Ruta relativa al directorio de imágenes
+    @Column(nullable = false)
+    private String path;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Kind kind;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    @Builder.Default
+    private Instant nextAttemptAt = Instant.now();
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    public enum Kind {
+        // Borrar el archivo
+        FILE,
+        // Borrar la carpeta solo si quedó vacía
+        FOLDER_IF_EMPTY
+    }
+}
@@ -16,6 +16,7 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(CollectionChangeListener.class)
 @Table(name = "hotel_settings")
 public class HotelSettings {
     @Id
@@ -17,7 +17,13 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "incidents")
+@EntityListeners(CollectionChangeListener.class)
+@Table(name = "incidents", indexes = {
+        @Index(name = "idx_incidents_status", columnList = "status"),
+        @Index(name = "idx_incidents_created_at", columnList = "created_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_incidents_user_client_id", columnNames = {"reported_by_user_id", "client_id"})
+})
 public class Incident {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -64,6 +70,10 @@ public class Incident {
     @Column(name = "synced_at")
     private Instant syncedAt;
 
+    // Id generado por el dispositivo para registros capturados sin conexión (deduplicación)
+    @Column(name = "client_id", length = 64)
+    private String clientId;
+
     @OneToMany(mappedBy = "incident", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     private List<IncidentPhoto> photos;
 
@@ -14,6 +14,7 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(CollectionChangeListener.class)
 @Table(name = "incident_photos")
 public class IncidentPhoto {
     @Id
@@ -0,0 +1,41 @@
+package utez.edu.mx.backend.hotel.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Archivo de foto almacenado una sola vez por contenido (SHA-256), con el número de fotos que lo usan
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "photo_blobs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_photo_blobs_photo_url", columnNames = "photo_url")
+})
+public class PhotoBlob {
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "photo_url", nullable = false)
+    private String photoUrl;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "content_type", nullable = false, length = 50)
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
@@ -16,7 +16,11 @@ import java.time.LocalTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "rooms")
+@EntityListeners(CollectionChangeListener.class)
+@Table(name = "rooms", indexes = {
+        @Index(name = "idx_rooms_status_schedule", columnList = "current_status, scheduled_cleaning_time"),
+        @Index(name = "idx_rooms_change_version", columnList = "change_version")
+})
 public class Room {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -53,6 +57,10 @@ public class Room {
     @Column(name = "updated_at")
     private Instant updatedAt;
 
+    // Versión global del último cambio (RoomChangeTracker), usada por la sincronización incremental
+    @Column(name = "change_version")
+    private Long changeVersion;
+
     public enum RoomStatus {
         EN_USO, PENDIENTE_LIMPIEZA, EN_LIMPIEZA, LIMPIA, BLOQUEADA_INCIDENCIA
     }
@@ -16,7 +16,11 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "room_assignments")
+@EntityListeners(CollectionChangeListener.class)
+@Table(name = "room_assignments", indexes = {
+        @Index(name = "idx_room_assignments_user_active", columnList = "user_id, active"),
+        @Index(name = "idx_room_assignments_room_active", columnList = "room_id, active")
+})
 public class RoomAssignment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,37 @@
+package utez.edu.mx.backend.hotel.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Registro de una habitación eliminada, para que la sincronización incremental informe el borrado
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "room_tombstones", indexes = {
+        @Index(name = "idx_room_tombstones_change_version", columnList = "change_version")
+})
+public class RoomTombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "change_version", nullable = false)
+    private Long changeVersion;
+
+    @CreationTimestamp
+    @Column(name = "deleted_at", updatable = false)
+    private Instant deletedAt;
+}
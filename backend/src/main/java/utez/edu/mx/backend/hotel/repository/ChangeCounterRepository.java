@@ -0,0 +1,24 @@
+package utez.edu.mx.backend.hotel.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import utez.edu.mx.backend.hotel.model.ChangeCounter;
+
+import java.util.Optional;
+
+@Repository
+public interface ChangeCounterRepository extends JpaRepository<ChangeCounter, String> {
+    @Modifying
+    @Query("update ChangeCounter c set c.value = c.value + 1 where c.name = :name")
+    int increment(@Param("name") String name);
+
+    @Query("select c.value from ChangeCounter c where c.name = :name")
+    Optional<Long> findValue(@Param("name") String name);
+
+    @Modifying
+    @Query("update ChangeCounter c set c.value = :value where c.name = :name and c.value < :value")
+    int raiseTo(@Param("name") String name, @Param("value") Long value);
+}
@@ -1,17 +1,56 @@
 package utez.edu.mx.backend.hotel.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import utez.edu.mx.backend.hotel.dto.CleaningResponse;
 import utez.edu.mx.backend.hotel.model.Cleaning;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CleaningRepository extends JpaRepository<Cleaning, Long> {
+    /**
+     * Proyección del id de servidor de un registro sincronizado desde el dispositivo
+     */
+    interface SyncedId {
+        String getClientId();
+        Long getId();
+    }
+
+    /**
+     * Proyección a CleaningResponse con habitación y usuario en la misma consulta
+     */
+    String RESPONSE_SELECT = "select new utez.edu.mx.backend.hotel.dto.CleaningResponse(" +
+            "c.id, r.id, r.roomNumber, u.id, u.name, c.cleaningDatetime, c.source, c.isOffline, " +
+            "c.isSynced, c.syncedAt, c.createdAt) " +
+            "from Cleaning c join c.room r join c.cleanedByUser u ";
+
     List<Cleaning> findByRoomId(Long roomId);
     List<Cleaning> findByCleanedByUserId(Long userId);
     List<Cleaning> findByCleaningDatetimeBetween(Instant start, Instant end);
     List<Cleaning> findByIsOfflineTrue();
     List<Cleaning> findByIsSyncedFalse();
+
+    /**
+     * Registros ya sincronizados del usuario con alguno de los ids de cliente indicados
+     */
+    @Query("select c.clientId as clientId, c.id as id from Cleaning c where c.cleanedByUser.id = :userId and c.clientId in :clientIds")
+    List<SyncedId> findIdsByClientIds(@Param("userId") Long userId, @Param("clientIds") Collection<String> clientIds);
+
+    @Query(RESPONSE_SELECT + "where r.id = :roomId")
+    List<CleaningResponse> findResponsesByRoomId(@Param("roomId") Long roomId);
+
+    @Query(RESPONSE_SELECT + "where u.id = :userId")
+    List<CleaningResponse> findResponsesByCleanedByUserId(@Param("userId") Long userId);
+
+    @Query(RESPONSE_SELECT + "where c.cleaningDatetime between :start and :end")
+    List<CleaningResponse> findResponsesByCleaningDatetimeBetween(@Param("start") Instant start,
+                                                                  @Param("end") Instant end);
+
+    @Query(RESPONSE_SELECT + "where c.isSynced = false")
+    List<CleaningResponse> findResponsesByIsSyncedFalse();
 }
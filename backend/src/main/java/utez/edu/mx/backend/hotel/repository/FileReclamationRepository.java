@@ -0,0 +1,13 @@
+package utez.edu.mx.backend.hotel.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import utez.edu.mx.backend.hotel.model.FileReclamation;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface FileReclamationRepository extends JpaRepository<FileReclamation, Long> {
+    List<FileReclamation> findTop500ByNextAttemptAtLessThanEqualOrderByIdAsc(Instant now);
+}
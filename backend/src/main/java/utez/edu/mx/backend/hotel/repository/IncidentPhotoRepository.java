@@ -1,12 +1,42 @@
 package utez.edu.mx.backend.hotel.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import utez.edu.mx.backend.hotel.model.IncidentPhoto;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface IncidentPhotoRepository extends JpaRepository<IncidentPhoto, Long> {
+    /**
+     * Proyección mínima de una foto con el id de su incidencia
+     */
+    interface PhotoUrl {
+        Long getIncidentId();
+        String getPhotoUrl();
+    }
+
+    /**
+     * Proyección mínima para recorrer las fotos por id
+     */
+    interface PhotoRef {
+        Long getId();
+        String getPhotoUrl();
+    }
+
     List<IncidentPhoto> findByIncidentId(Long incidentId);
+
+    /**
+     * Siguiente lote de fotos por id, bloqueado hasta el fin de la transacción
+     */
+    @Query(value = "select id as id, photo_url as photoUrl from incident_photos where id > :afterId " +
+            "order by id limit :limit for update", nativeQuery = true)
+    List<PhotoRef> lockPhotoRefsAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    @Query("select p.incident.id as incidentId, p.photoUrl as photoUrl from IncidentPhoto p " +
+            "where p.incident.id in :incidentIds order by p.id")
+    List<PhotoUrl> findPhotoUrlsByIncidentIds(@Param("incidentIds") Collection<Long> incidentIds);
 }
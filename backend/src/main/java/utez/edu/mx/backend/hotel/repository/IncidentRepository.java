@@ -1,16 +1,82 @@
 package utez.edu.mx.backend.hotel.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import utez.edu.mx.backend.hotel.dto.IncidentResponse;
 import utez.edu.mx.backend.hotel.model.Incident;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface IncidentRepository extends JpaRepository<Incident, Long> {
+    /**
+     * Proyección del id de servidor de un registro sincronizado desde el dispositivo
+     */
+    interface SyncedId {
+        String getClientId();
+        Long getId();
+    }
+
+    /**
+     * Proyección a IncidentResponse con habitación y usuario en la misma consulta; las fotos se cargan
+     * aparte con IncidentPhotoRepository.findPhotoUrlsByIncidentIds
+     */
+    String RESPONSE_SELECT = "select new utez.edu.mx.backend.hotel.dto.IncidentResponse(" +
+            "i.id, r.id, r.roomNumber, u.id, u.name, i.title, i.description, i.status, i.createdAt, " +
+            "i.updatedAt, i.resolvedAt, i.isOffline, i.isSynced, i.syncedAt) " +
+            "from Incident i join i.room r join i.reportedByUser u ";
+
     List<Incident> findByRoomId(Long roomId);
     List<Incident> findByReportedByUserId(Long userId);
     List<Incident> findByStatus(Incident.IncidentStatus status);
     List<Incident> findByIsOfflineTrue();
     List<Incident> findByIsSyncedFalse();
+
+    /**
+     * Incidencias ya sincronizadas del usuario con alguno de los ids de cliente indicados
+     */
+    @Query("select i.clientId as clientId, i.id as id from Incident i where i.reportedByUser.id = :userId and i.clientId in :clientIds")
+    List<SyncedId> findIdsByClientIds(@Param("userId") Long userId, @Param("clientIds") Collection<String> clientIds);
+
+    @Query(RESPONSE_SELECT)
+    List<IncidentResponse> findAllResponses();
+
+    @Query(RESPONSE_SELECT + "where i.id = :id")
+    Optional<IncidentResponse> findResponseById(@Param("id") Long id);
+
+    @Query(RESPONSE_SELECT + "where r.id = :roomId")
+    List<IncidentResponse> findResponsesByRoomId(@Param("roomId") Long roomId);
+
+    @Query(RESPONSE_SELECT + "where i.status = :status")
+    List<IncidentResponse> findResponsesByStatus(@Param("status") Incident.IncidentStatus status);
+
+    @Query(RESPONSE_SELECT + "where i.isSynced = false")
+    List<IncidentResponse> findResponsesByIsSyncedFalse();
+
+    /**
+     * Búsqueda por cursor (id descendente) con filtros opcionales. Proyecta directamente a la
+     * respuesta sin cargar entidades ni la colección de fotos.
+     */
+    @Query(RESPONSE_SELECT + "where (:cursor is null or i.id < :cursor) " +
+            "and (:status is null or i.status = :status) " +
+            "and (:roomId is null or r.id = :roomId) " +
+            "and (:floor is null or r.floor = :floor) " +
+            "and (:reportedBy is null or u.id = :reportedBy) " +
+            "and (:from is null or i.createdAt >= :from) " +
+            "and (:to is null or i.createdAt < :to) " +
+            "order by i.id desc")
+    List<IncidentResponse> search(@Param("cursor") Long cursor,
+                                  @Param("status") Incident.IncidentStatus status,
+                                  @Param("roomId") Long roomId,
+                                  @Param("floor") String floor,
+                                  @Param("reportedBy") Long reportedBy,
+                                  @Param("from") Instant from,
+                                  @Param("to") Instant to,
+                                  Pageable pageable);
 }
@@ -0,0 +1,132 @@
+package utez.edu.mx.backend.hotel.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import utez.edu.mx.backend.hotel.model.Cleaning;
+import utez.edu.mx.backend.hotel.model.Incident;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Inserciones en lote de registros capturados sin conexión (limpiezas, incidencias y sus fotos)
+ */
+@Repository
+@RequiredArgsConstructor
+public class OfflineSyncBatchRepository {
+
+    private static final String INSERT_CLEANING_SQL =
+            "insert into cleanings (room_id, cleaned_by_user_id, cleaning_datetime, source, is_offline, is_synced, " +
+                    "synced_at, created_at, client_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_INCIDENT_SQL =
+            "insert into incidents (room_id, reported_by_user_id, title, description, status, is_offline, is_synced, " +
+                    "synced_at, created_at, updated_at, client_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_PHOTO_SQL =
+            "insert into incident_photos (incident_id, photo_url, created_at) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record NewCleaning(String clientId, Long roomId, Instant cleaningDatetime, Cleaning.CleaningSource source) {
+    }
+
+    public record NewIncident(String clientId, Long roomId, String title, String description, Instant reportedAt) {
+    }
+
+    public record NewPhoto(Long incidentId, String photoUrl) {
+    }
+
+    /**
+     * Inserta las limpiezas ya sincronizadas y devuelve sus ids en el mismo orden
+     */
+    public List<Long> insertCleanings(Long userId, List<NewCleaning> cleanings, Instant syncedAt) {
+        Timestamp synced = Timestamp.from(syncedAt);
+        return insert(INSERT_CLEANING_SQL, cleanings, (ps, cleaning) -> {
+            ps.setLong(1, cleaning.roomId());
+            ps.setLong(2, userId);
+            ps.setTimestamp(3, Timestamp.from(cleaning.cleaningDatetime()));
+            ps.setString(4, cleaning.source().name());
+            ps.setBoolean(5, true);
+            ps.setBoolean(6, true);
+            ps.setTimestamp(7, synced);
+            ps.setTimestamp(8, synced);
+            ps.setString(9, cleaning.clientId());
+        });
+    }
+
+    /**
+     * Inserta las incidencias abiertas ya sincronizadas y devuelve sus ids en el mismo orden.
+     * created_at conserva la fecha en que se reportó en el dispositivo.
+     */
+    public List<Long> insertIncidents(Long userId, List<NewIncident> incidents, Instant syncedAt) {
+        Timestamp synced = Timestamp.from(syncedAt);
+        return insert(INSERT_INCIDENT_SQL, incidents, (ps, incident) -> {
+            ps.setLong(1, incident.roomId());
+            ps.setLong(2, userId);
+            ps.setString(3, incident.title());
+            if (incident.description() != null) {
+                ps.setString(4, incident.description());
+            } else {
+                ps.setNull(4, Types.VARCHAR);
+            }
+            ps.setString(5, Incident.IncidentStatus.ABIERTA.name());
+            ps.setBoolean(6, true);
+            ps.setBoolean(7, true);
+            ps.setTimestamp(8, synced);
+            ps.setTimestamp(9, Timestamp.from(incident.reportedAt()));
+            ps.setTimestamp(10, synced);
+            ps.setString(11, incident.clientId());
+        });
+    }
+
+    public void insertPhotos(List<NewPhoto> photos, Instant createdAt) {
+        if (photos.isEmpty()) {
+            return;
+        }
+        Timestamp created = Timestamp.from(createdAt);
+        jdbcTemplate.batchUpdate(INSERT_PHOTO_SQL, photos, photos.size(), (ps, photo) -> {
+            ps.setLong(1, photo.incidentId());
+            ps.setString(2, photo.photoUrl());
+            ps.setTimestamp(3, created);
+        });
+    }
+
+    private interface RowSetter<T> {
+        void setValues(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    private <T> List<Long> insert(String sql, List<T> rows, RowSetter<T> setter) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setter.setValues(ps, rows.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keyHolder
+        );
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+    }
+}
@@ -0,0 +1,66 @@
+package utez.edu.mx.backend.hotel.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import utez.edu.mx.backend.hotel.model.PhotoBlob;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PhotoBlobRepository extends JpaRepository<PhotoBlob, String> {
+    /**
+     * Registra una referencia al blob y devuelve la URL con la que quedó guardado. Si el contenido ya
+     * existía se conserva su URL original (puede ser anterior a la estructura por subcarpetas).
+     */
+    default String acquire(String hash, String photoUrl, long sizeBytes, String contentType, Instant now) {
+        upsertReference(hash, photoUrl, sizeBytes, contentType, now);
+        return findPhotoUrlByHash(hash);
+    }
+
+    /**
+     * Crea el blob con una referencia si es la primera vez que se ve el contenido, o suma una.
+     * Un solo upsert evita la carrera entre dos cargas simultáneas de la misma foto.
+     */
+    @Modifying
+    @Query(value = "insert into photo_blobs (hash, photo_url, size_bytes, content_type, ref_count, created_at) " +
+            "values (:hash, :photoUrl, :sizeBytes, :contentType, 1, :now) " +
+            "on duplicate key update ref_count = ref_count + 1", nativeQuery = true)
+    int upsertReference(@Param("hash") String hash,
+                        @Param("photoUrl") String photoUrl,
+                        @Param("sizeBytes") long sizeBytes,
+                        @Param("contentType") String contentType,
+                        @Param("now") Instant now);
+
+    @Query("select b.photoUrl from PhotoBlob b where b.hash = :hash")
+    String findPhotoUrlByHash(@Param("hash") String hash);
+
+    /**
+     * Bloquea los blobs hasta el fin de la transacción; las cargas y liberaciones de esos hashes esperan
+     */
+    @Query(value = "select hash from photo_blobs where hash in (:hashes) for update", nativeQuery = true)
+    List<String> lockByHashes(@Param("hashes") Collection<String> hashes);
+
+    /**
+     * Suma referencias a un blob existente (fotos que llegan por URL desde la sincronización offline).
+     * El blob debe estar bloqueado con lockByHashes para que no se recupere antes del commit.
+     */
+    @Modifying
+    @Query("update PhotoBlob b set b.refCount = b.refCount + :count where b.hash = :hash")
+    int retain(@Param("hash") String hash, @Param("count") int count);
+
+    @Modifying
+    @Query("update PhotoBlob b set b.refCount = b.refCount - 1 where b.hash = :hash and b.refCount > 0")
+    int release(@Param("hash") String hash);
+
+    /**
+     * Elimina el registro solo si ya no quedan referencias; devuelve 1 si el archivo debe borrarse
+     */
+    @Modifying
+    @Query("delete from PhotoBlob b where b.hash = :hash and b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
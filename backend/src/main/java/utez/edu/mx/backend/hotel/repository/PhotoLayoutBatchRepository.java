@@ -0,0 +1,49 @@
+package utez.edu.mx.backend.hotel.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Actualizaciones en lote de las URL de fotos al migrar la estructura de carpetas
+ */
+@Repository
+@RequiredArgsConstructor
+public class PhotoLayoutBatchRepository {
+
+    private static final String UPDATE_PHOTO_URL_SQL =
+            "update incident_photos set photo_url = ? where id = ?";
+
+    private static final String UPDATE_BLOB_URL_SQL =
+            "update photo_blobs set photo_url = ? where hash = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record PhotoUrlUpdate(Long photoId, String photoUrl) {
+    }
+
+    public record BlobUrlUpdate(String hash, String photoUrl) {
+    }
+
+    public void updatePhotoUrls(List<PhotoUrlUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_PHOTO_URL_SQL, updates, updates.size(), (ps, update) -> {
+            ps.setString(1, update.photoUrl());
+            ps.setLong(2, update.photoId());
+        });
+    }
+
+    public void updateBlobUrls(List<BlobUrlUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_BLOB_URL_SQL, updates, updates.size(), (ps, update) -> {
+            ps.setString(1, update.photoUrl());
+            ps.setString(2, update.hash());
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package utez.edu.mx.backend.hotel.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Inserciones masivas de asignaciones con batching JDBC. Con rewriteBatchedStatements activo en el
+ * driver de MySQL, el lote completo viaja como un solo INSERT multi-fila.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RoomAssignmentBatchRepository {
+
+    private static final String INSERT_SQL =
+            "insert into room_assignments (room_id, user_id, active, created_at, updated_at) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record NewAssignment(Long roomId, Long userId) {
+    }
+
+    /**
+     * Inserta las asignaciones activas y devuelve sus ids generados en el mismo orden
+     */
+    public List<Long> insertActive(List<NewAssignment> assignments, Instant now) {
+        if (assignments.isEmpty()) {
+            return List.of();
+        }
+        Timestamp timestamp = Timestamp.from(now);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        NewAssignment assignment = assignments.get(i);
+                        ps.setLong(1, assignment.roomId());
+                        ps.setLong(2, assignment.userId());
+                        ps.setBoolean(3, true);
+                        ps.setTimestamp(4, timestamp);
+                        ps.setTimestamp(5, timestamp);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return assignments.size();
+                    }
+                },
+                keyHolder
+        );
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+    }
+}
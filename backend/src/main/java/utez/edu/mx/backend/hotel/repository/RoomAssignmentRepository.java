@@ -1,14 +1,45 @@
 package utez.edu.mx.backend.hotel.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import utez.edu.mx.backend.hotel.dto.RoomAssignmentResponse;
+import utez.edu.mx.backend.hotel.model.Room;
 import utez.edu.mx.backend.hotel.model.RoomAssignment;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface RoomAssignmentRepository extends JpaRepository<RoomAssignment, Long> {
+    /**
+     * Proyección a RoomAssignmentResponse con habitación y usuario en la misma consulta
+     */
+    String RESPONSE_SELECT = "select new utez.edu.mx.backend.hotel.dto.RoomAssignmentResponse(" +
+            "a.id, r.id, r.roomNumber, r.floor, r.barcodeValue, r.currentStatus, u.id, u.name, u.email, " +
+            "a.active, a.createdAt, a.updatedAt) " +
+            "from RoomAssignment a join a.room r join a.user u ";
+
     List<RoomAssignment> findByUserIdAndActiveTrue(Long userId);
     List<RoomAssignment> findByRoomIdAndActiveTrue(Long roomId);
     List<RoomAssignment> findByActiveTrue();
+
+    /**
+     * Asignaciones activas cuya habitación no está en el estado indicado (filtrado en SQL)
+     */
+    @Query(RESPONSE_SELECT + "where a.active = true and r.currentStatus <> :excludedStatus")
+    List<RoomAssignmentResponse> findActiveResponsesExcludingRoomStatus(
+            @Param("excludedStatus") Room.RoomStatus excludedStatus);
+
+    @Query(RESPONSE_SELECT + "where a.active = true and u.id = :userId and r.currentStatus <> :excludedStatus")
+    List<RoomAssignmentResponse> findActiveResponsesByUserIdExcludingRoomStatus(
+            @Param("userId") Long userId,
+            @Param("excludedStatus") Room.RoomStatus excludedStatus);
+
+    @Query(RESPONSE_SELECT + "where a.id in :ids order by a.id")
+    List<RoomAssignmentResponse> findResponsesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(RESPONSE_SELECT + "where a.active = true and r.id = :roomId")
+    List<RoomAssignmentResponse> findActiveResponsesByRoomId(@Param("roomId") Long roomId);
 }
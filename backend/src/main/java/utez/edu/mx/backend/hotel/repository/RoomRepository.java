@@ -1,16 +1,136 @@
 package utez.edu.mx.backend.hotel.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import utez.edu.mx.backend.hotel.model.Room;
 
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
+    /**
+     * Proyección mínima para reconstruir los vencimientos de limpieza en memoria
+     */
+    interface CleaningSchedule {
+        Long getId();
+        LocalTime getScheduledCleaningTime();
+    }
+
+    /**
+     * Proyección mínima para publicar cambios de estado masivos
+     */
+    interface RoomSummary {
+        Long getId();
+        String getRoomNumber();
+        String getFloor();
+    }
+
     Optional<Room> findByRoomNumber(String roomNumber);
     Optional<Room> findByBarcodeValue(String barcodeValue);
     List<Room> findByCurrentStatus(Room.RoomStatus status);
     List<Room> findByFloor(String floor);
+
+    /**
+     * Horarios de limpieza distintos que ya vencieron hoy para habitaciones en los estados indicados
+     */
+    @Query("select distinct r.scheduledCleaningTime from Room r " +
+            "where r.currentStatus in :statuses " +
+            "and r.scheduledCleaningTime is not null " +
+            "and r.scheduledCleaningTime <= :currentTime")
+    List<LocalTime> findDueScheduledCleaningTimes(@Param("statuses") Collection<Room.RoomStatus> statuses,
+                                                  @Param("currentTime") LocalTime currentTime);
+
+    /**
+     * Ids de las habitaciones indicadas que existen
+     */
+    @Query("select r.id from Room r where r.id in :roomIds")
+    List<Long> findExistingIds(@Param("roomIds") Collection<Long> roomIds);
+
+    /**
+     * Ids de las habitaciones del piso indicado
+     */
+    @Query("select r.id from Room r where r.floor = :floor")
+    List<Long> findIdsByFloor(@Param("floor") String floor);
+
+    /**
+     * Horario de limpieza de cada habitación que tiene uno, para reconstruir los vencimientos al arrancar
+     */
+    @Query("select r.id as id, r.scheduledCleaningTime as scheduledCleaningTime from Room r " +
+            "where r.scheduledCleaningTime is not null")
+    List<CleaningSchedule> findAllCleaningSchedules();
+
+    /**
+     * Habitaciones cambiadas entre dos versiones, en orden de versión (sincronización incremental)
+     */
+    List<Room> findByChangeVersionGreaterThanAndChangeVersionLessThanEqualOrderByChangeVersionAsc(Long since, Long until);
+
+    /**
+     * Bloquea las habitaciones indicadas hasta el fin de la transacción
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from Room r where r.id in :roomIds")
+    List<Room> lockAllById(@Param("roomIds") Collection<Long> roomIds);
+
+    /**
+     * Habitaciones con el horario indicado que deben pasar a PENDIENTE_LIMPIEZA porque su último cambio
+     * de estado es anterior al horario de hoy. Bloquea las filas hasta el fin de la transacción para que
+     * el UPDATE por id posterior cambie y publique exactamente estas habitaciones.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r.id as id, r.roomNumber as roomNumber, r.floor as floor from Room r " +
+            "where r.currentStatus in :statuses " +
+            "and r.scheduledCleaningTime = :scheduledTime " +
+            "and (r.lastStatusChange is null or r.lastStatusChange < :cutoff)")
+    List<RoomSummary> lockDueForCleaning(@Param("statuses") Collection<Room.RoomStatus> statuses,
+                                         @Param("scheduledTime") LocalTime scheduledTime,
+                                         @Param("cutoff") Instant cutoff);
+
+    /**
+     * Igual que lockDueForCleaning pero limitado a las habitaciones indicadas
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r.id as id, r.roomNumber as roomNumber, r.floor as floor from Room r " +
+            "where r.id in :roomIds " +
+            "and r.currentStatus in :statuses " +
+            "and r.scheduledCleaningTime = :scheduledTime " +
+            "and (r.lastStatusChange is null or r.lastStatusChange < :cutoff)")
+    List<RoomSummary> lockDueForCleaningAmong(@Param("roomIds") Collection<Long> roomIds,
+                                              @Param("statuses") Collection<Room.RoomStatus> statuses,
+                                              @Param("scheduledTime") LocalTime scheduledTime,
+                                              @Param("cutoff") Instant cutoff);
+
+    /**
+     * Cambia en una sola sentencia el estado de las habitaciones indicadas
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update Room r set r.currentStatus = :status, " +
+            "r.lastStatusChange = :now, r.updatedAt = :now, r.changeVersion = :version " +
+            "where r.id in :roomIds")
+    int updateStatusForRooms(@Param("roomIds") Collection<Long> roomIds,
+                             @Param("status") Room.RoomStatus status,
+                             @Param("now") Instant now,
+                             @Param("version") Long version);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update Room r set r.scheduledCleaningTime = :scheduledTime, r.updatedAt = :now, r.changeVersion = :version")
+    int updateScheduledCleaningTimeForAll(@Param("scheduledTime") LocalTime scheduledTime,
+                                          @Param("now") Instant now,
+                                          @Param("version") Long version);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update Room r set r.scheduledCleaningTime = :scheduledTime, r.updatedAt = :now, r.changeVersion = :version " +
+            "where r.id in :roomIds")
+    int updateScheduledCleaningTimeForRooms(@Param("roomIds") Collection<Long> roomIds,
+                                            @Param("scheduledTime") LocalTime scheduledTime,
+                                            @Param("now") Instant now,
+                                            @Param("version") Long version);
 }
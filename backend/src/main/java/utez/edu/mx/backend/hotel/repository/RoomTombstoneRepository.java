@@ -0,0 +1,26 @@
+package utez.edu.mx.backend.hotel.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import utez.edu.mx.backend.hotel.model.RoomTombstone;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RoomTombstoneRepository extends JpaRepository<RoomTombstone, Long> {
+    @Query("select t.roomId from RoomTombstone t " +
+            "where t.changeVersion > :since and t.changeVersion <= :until order by t.changeVersion")
+    List<Long> findDeletedRoomIds(@Param("since") Long since, @Param("until") Long until);
+
+    @Query("select max(t.changeVersion) from RoomTombstone t where t.deletedAt < :cutoff")
+    Optional<Long> findMaxChangeVersionBefore(@Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query("delete from RoomTombstone t where t.changeVersion <= :version")
+    int deleteUpToVersion(@Param("version") Long version);
+}
@@ -0,0 +1,204 @@
+package utez.edu.mx.backend.hotel.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import utez.edu.mx.backend.hotel.repository.RoomRepository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Mantiene en memoria el próximo vencimiento de limpieza de cada habitación, ordenado por instante,
+ * y programa un único disparo para el vencimiento más cercano. Al vencer, cambia a PENDIENTE_LIMPIEZA
+ * solo las habitaciones afectadas, sin recorrer la tabla de habitaciones.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CleaningDeadlineScheduler {
+    private final RoomRepository roomRepository;
+    private final TaskScheduler taskScheduler;
+    private final CleaningScheduler cleaningScheduler;
+
+    // Vencimiento -> habitaciones que vencen en ese instante
+    private final TreeMap<Instant, Set<Long>> deadlines = new TreeMap<>();
+    // Habitación -> horario programado y vencimiento actual
+    private final Map<Long, LocalTime> scheduleByRoom = new HashMap<>();
+    private final Map<Long, Instant> deadlineByRoom = new HashMap<>();
+
+    private ScheduledFuture<?> nextWakeUp;
+    private Instant nextWakeUpAt;
+
+    /**
+     * Reconstruye los vencimientos a partir de la base de datos al arrancar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<RoomRepository.CleaningSchedule> schedules = roomRepository.findAllCleaningSchedules();
+        synchronized (this) {
+            deadlines.clear();
+            scheduleByRoom.clear();
+            deadlineByRoom.clear();
+            Instant now = Instant.now();
+            for (RoomRepository.CleaningSchedule schedule : schedules) {
+                put(schedule.getId(), schedule.getScheduledCleaningTime(), now);
+            }
+            rearm();
+        }
+        log.info("Vencimientos de limpieza reconstruidos para {} habitaciones", schedules.size());
+    }
+
+    /**
+     * Registra o actualiza el horario de una habitación (null elimina el vencimiento).
+     * Si hay una transacción activa, el cambio se aplica hasta que se confirme.
+     */
+    public void schedule(Long roomId, LocalTime scheduledTime) {
+        afterCommit(() -> {
+            synchronized (this) {
+                remove(roomId);
+                if (scheduledTime != null) {
+                    put(roomId, scheduledTime, Instant.now());
+                }
+                rearm();
+            }
+        });
+    }
+
+    /**
+     * Recarga todos los vencimientos después de un cambio masivo de horarios
+     */
+    public void scheduleAll() {
+        afterCommit(this::rebuild);
+    }
+
+    /**
+     * Elimina el vencimiento de una habitación
+     */
+    public void unschedule(Long roomId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                remove(roomId);
+                rearm();
+            }
+        });
+    }
+
+    private void fire() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Map<Instant, Map<LocalTime, List<Long>>> due = new TreeMap<>();
+
+        synchronized (this) {
+            nextWakeUp = null;
+            nextWakeUpAt = null;
+            while (!deadlines.isEmpty() && !deadlines.firstKey().isAfter(now)) {
+                Map.Entry<Instant, Set<Long>> entry = deadlines.pollFirstEntry();
+                for (Long roomId : entry.getValue()) {
+                    LocalTime scheduledTime = scheduleByRoom.get(roomId);
+                    due.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                            .computeIfAbsent(scheduledTime, k -> new ArrayList<>())
+                            .add(roomId);
+                    // El siguiente vencimiento es el mismo horario del día siguiente
+                    deadlineByRoom.remove(roomId);
+                    put(roomId, scheduledTime, now.plusSeconds(1));
+                }
+            }
+        }
+
+        try {
+            int updated = due.isEmpty() ? 0 : cleaningScheduler.markDueRooms(due, now);
+            if (updated > 0) {
+                log.info("Vencimiento de limpieza: {} habitaciones cambiadas a PENDIENTE_LIMPIEZA", updated);
+            }
+        } catch (RuntimeException e) {
+            // El barrido periódico de CleaningScheduler recupera las habitaciones no actualizadas
+            log.error("Error al aplicar vencimientos de limpieza", e);
+        } finally {
+            synchronized (this) {
+                rearm();
+            }
+        }
+    }
+
+    private void put(Long roomId, LocalTime scheduledTime, Instant from) {
+        if (scheduledTime == null) {
+            return;
+        }
+        Instant deadline = nextDeadline(scheduledTime, from);
+        scheduleByRoom.put(roomId, scheduledTime);
+        deadlineByRoom.put(roomId, deadline);
+        deadlines.computeIfAbsent(deadline, k -> new HashSet<>()).add(roomId);
+    }
+
+    private void remove(Long roomId) {
+        scheduleByRoom.remove(roomId);
+        Instant deadline = deadlineByRoom.remove(roomId);
+        if (deadline != null) {
+            Set<Long> rooms = deadlines.get(deadline);
+            if (rooms != null) {
+                rooms.remove(roomId);
+                if (rooms.isEmpty()) {
+                    deadlines.remove(deadline);
+                }
+            }
+        }
+    }
+
+    /**
+     * Programa el disparo para el vencimiento más cercano, reemplazando el anterior si cambió
+     */
+    private void rearm() {
+        Instant earliest = deadlines.isEmpty() ? null : deadlines.firstKey();
+        if (earliest != null && earliest.equals(nextWakeUpAt)) {
+            return;
+        }
+        if (nextWakeUp != null) {
+            nextWakeUp.cancel(false);
+            nextWakeUp = null;
+            nextWakeUpAt = null;
+        }
+        if (earliest != null) {
+            nextWakeUpAt = earliest;
+            nextWakeUp = taskScheduler.schedule(this::fire, earliest);
+        }
+    }
+
+    private Instant nextDeadline(LocalTime scheduledTime, Instant from) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = from.atZone(zone).toLocalDate();
+        Instant deadline = today.atTime(scheduledTime).atZone(zone).toInstant();
+        if (deadline.isBefore(from)) {
+            deadline = today.plusDays(1).atTime(scheduledTime).atZone(zone).toInstant();
+        }
+        return deadline;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -7,17 +7,32 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import utez.edu.mx.backend.hotel.model.Room;
 import utez.edu.mx.backend.hotel.repository.RoomRepository;
+import utez.edu.mx.backend.hotel.service.CollectionVersionService;
+import utez.edu.mx.backend.hotel.service.RoomChangeTracker;
+import utez.edu.mx.backend.hotel.service.RoomEventService;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class CleaningScheduler {
+    // Estados que pueden pasar automáticamente a PENDIENTE_LIMPIEZA
+    static final Set<Room.RoomStatus> SWEEPABLE_STATUSES =
+            EnumSet.of(Room.RoomStatus.EN_USO, Room.RoomStatus.LIMPIA);
+
     private final RoomRepository roomRepository;
+    private final RoomEventService roomEventService;
+    private final RoomChangeTracker roomChangeTracker;
+    private final CollectionVersionService collectionVersionService;
 
     /**
      * Tarea programada que se ejecuta cada minuto para verificar si alguna habitación
@@ -25,50 +40,79 @@ public class CleaningScheduler {
      *
      * Cambia el estado de habitaciones que están EN_USO o LIMPIA.
      * NO cambia habitaciones BLOQUEADAS, EN_LIMPIEZA o que ya están PENDIENTE_LIMPIEZA.
+     *
+     * En lugar de cargar las habitaciones, bloquea los ids vencidos de cada horario (normalmente uno
+     * solo: el horario por defecto del hotel) y los cambia con un único UPDATE por id.
+     *
+     * Las transiciones puntuales las dispara CleaningDeadlineScheduler; este barrido solo
+     * recupera vencimientos perdidos (arranque, errores), por eso corre con poca frecuencia.
      */
-    //Ejecutar cada 15 segundos para pruebas
-    @Scheduled(fixedRate = 15000)
+    @Scheduled(fixedDelayString = "${hotel.cleaning.sweep-interval-ms:300000}")
     @Transactional
     public void checkAndUpdateRoomStatuses() {
-        LocalTime currentTime = LocalTime.now();
-
-        List<Room> roomsInUse = roomRepository.findByCurrentStatus(Room.RoomStatus.EN_USO);
-        List<Room> cleanRooms = roomRepository.findByCurrentStatus(Room.RoomStatus.LIMPIA);
-
-        List<Room> roomsToCheck = new java.util.ArrayList<>();
-        roomsToCheck.addAll(roomsInUse);
-        roomsToCheck.addAll(cleanRooms);
-
-        for (Room room : roomsToCheck) {
-            if (room.getScheduledCleaningTime() != null) {
-                LocalTime scheduledTime = room.getScheduledCleaningTime();
-
-
-                if (currentTime.isAfter(scheduledTime) || currentTime.equals(scheduledTime)) {
-                    boolean needsUpdate = room.getLastStatusChange() == null ||
-                            !isToday(room.getLastStatusChange()) ||
-                            (isToday(room.getLastStatusChange()) &&
-                             getLocalTimeFromInstant(room.getLastStatusChange()).isBefore(scheduledTime));
-
-                    if (needsUpdate) {
-                        log.info("Cambiando habitación {} de {} a PENDIENTE_LIMPIEZA (horario programado: {})",
-                                room.getRoomNumber(), room.getCurrentStatus(), scheduledTime);
+        int updated = sweepDueRooms();
+        if (updated > 0) {
+            log.info("Se cambiaron {} habitaciones a PENDIENTE_LIMPIEZA", updated);
+        }
+    }
 
-                        room.setCurrentStatus(Room.RoomStatus.PENDIENTE_LIMPIEZA);
-                        room.setLastStatusChange(Instant.now());
-                        roomRepository.save(room);
-                    }
-                }
+    /**
+     * Cambia a PENDIENTE_LIMPIEZA todas las habitaciones cuyo horario ya venció hoy
+     * y devuelve cuántas filas se actualizaron
+     */
+    @Transactional
+    public int sweepDueRooms() {
+        LocalTime currentTime = LocalTime.now();
+        List<LocalTime> dueTimes = roomRepository.findDueScheduledCleaningTimes(SWEEPABLE_STATUSES, currentTime);
+        if (dueTimes.isEmpty()) {
+            return 0;
+        }
+        // El contador se bloquea antes que las habitaciones, en el mismo orden que el resto de escrituras
+        long version = roomChangeTracker.nextVersion();
+        List<RoomRepository.RoomSummary> dueRooms = new ArrayList<>();
+        for (LocalTime scheduledTime : dueTimes) {
+            // Una habitación vence si su último cambio de estado fue antes del horario de hoy
+            Instant cutoff = LocalDate.now().atTime(scheduledTime).atZone(ZoneId.systemDefault()).toInstant();
+            List<RoomRepository.RoomSummary> rooms =
+                    roomRepository.lockDueForCleaning(SWEEPABLE_STATUSES, scheduledTime, cutoff);
+            if (!rooms.isEmpty()) {
+                log.debug("Horario {}: {} habitaciones por cambiar a PENDIENTE_LIMPIEZA", scheduledTime, rooms.size());
             }
+            dueRooms.addAll(rooms);
         }
+        return markPendingCleaning(dueRooms, Instant.now(), version);
     }
 
-    private boolean isToday(Instant instant) {
-        return instant.atZone(ZoneId.systemDefault()).toLocalDate()
-                .equals(java.time.LocalDate.now());
+    /**
+     * Cambia a PENDIENTE_LIMPIEZA las habitaciones cuyos vencimientos disparó CleaningDeadlineScheduler,
+     * agrupadas por vencimiento y horario. Los grupos comparten la transacción y la versión de cambio,
+     * que se toma antes de bloquear las habitaciones, y la versión de la colección y los eventos se emiten solo si esa transacción se confirma.
+     */
+    @Transactional
+    public int markDueRooms(Map<Instant, Map<LocalTime, List<Long>>> due, Instant now) {
+        long version = roomChangeTracker.nextVersion();
+        List<RoomRepository.RoomSummary> dueRooms = new ArrayList<>();
+        for (Map.Entry<Instant, Map<LocalTime, List<Long>>> entry : due.entrySet()) {
+            for (Map.Entry<LocalTime, List<Long>> group : entry.getValue().entrySet()) {
+                dueRooms.addAll(roomRepository.lockDueForCleaningAmong(
+                        group.getValue(), SWEEPABLE_STATUSES, group.getKey(), entry.getKey()));
+            }
+        }
+        return markPendingCleaning(dueRooms, now, version);
     }
 
-    private LocalTime getLocalTimeFromInstant(Instant instant) {
-        return instant.atZone(ZoneId.systemDefault()).toLocalTime();
+    /**
+     * Actualiza por id las habitaciones ya bloqueadas y publica exactamente esas
+     */
+    private int markPendingCleaning(List<RoomRepository.RoomSummary> rooms, Instant now, long version) {
+        if (rooms.isEmpty()) {
+            return 0;
+        }
+        int updated = roomRepository.updateStatusForRooms(
+                rooms.stream().map(RoomRepository.RoomSummary::getId).toList(),
+                Room.RoomStatus.PENDIENTE_LIMPIEZA, now, version);
+        collectionVersionService.changed(CollectionVersionService.Tracked.ROOMS);
+        roomEventService.publish(rooms, Room.RoomStatus.PENDIENTE_LIMPIEZA, now);
+        return updated;
     }
 }
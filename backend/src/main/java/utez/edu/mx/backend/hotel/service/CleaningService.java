@@ -13,6 +13,7 @@ import utez.edu.mx.backend.hotel.model.Cleaning;
 import utez.edu.mx.backend.hotel.model.Room;
 import utez.edu.mx.backend.hotel.repository.CleaningRepository;
 import utez.edu.mx.backend.hotel.repository.RoomRepository;
+import utez.edu.mx.backend.hotel.scheduler.CleaningDeadlineScheduler;
 
 import java.time.Instant;
 import java.util.List;
@@ -24,6 +25,9 @@ public class CleaningService {
     private final CleaningRepository cleaningRepository;
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
+    private final CleaningDeadlineScheduler cleaningDeadlineScheduler;
+    private final RoomEventService roomEventService;
+    private final RoomChangeTracker roomChangeTracker;
 
     @Transactional
     public CleaningResponse registerCleaning(RegisterCleaningRequest request) {
@@ -39,6 +43,10 @@ public class CleaningService {
                     return new IllegalArgumentException("Habitación no encontrada");
                 });
 
+        // Tomar la versión antes del INSERT: su clave foránea bloquea la habitación y el contador
+        // siempre se bloquea primero
+        long version = roomChangeTracker.nextVersion();
+
         // Crear registro de limpieza
         Cleaning cleaning = Cleaning.builder()
                 .room(room)
@@ -56,7 +64,11 @@ public class CleaningService {
         // Actualizar estado de la habitación a LIMPIA
         room.setCurrentStatus(Room.RoomStatus.LIMPIA);
         room.setLastStatusChange(Instant.now());
+        room.setChangeVersion(version);
         roomRepository.save(room);
+        roomEventService.publish(room);
+        // La habitación limpia vuelve a quedar pendiente en su próximo horario programado
+        cleaningDeadlineScheduler.schedule(room.getId(), room.getScheduledCleaningTime());
         log.info("Estado de la habitación ID: {} actualizado a LIMPIA", room.getId());
 
         return CleaningResponse.fromEntity(savedCleaning);
@@ -65,36 +77,24 @@ public class CleaningService {
     @Transactional(readOnly = true)
     public List<CleaningResponse> getCleaningsByRoom(Long roomId) {
         log.debug("Obteniendo registros de limpieza para la habitación ID: {}", roomId);
-        return cleaningRepository.findByRoomId(roomId)
-                .stream()
-                .map(CleaningResponse::fromEntity)
-                .toList();
+        return cleaningRepository.findResponsesByRoomId(roomId);
     }
 
     @Transactional(readOnly = true)
     public List<CleaningResponse> getCleaningsByUser(Long userId) {
         log.debug("Obteniendo registros de limpieza para el usuario ID: {}", userId);
-        return cleaningRepository.findByCleanedByUserId(userId)
-                .stream()
-                .map(CleaningResponse::fromEntity)
-                .toList();
+        return cleaningRepository.findResponsesByCleanedByUserId(userId);
     }
 
     @Transactional(readOnly = true)
     public List<CleaningResponse> getCleaningsByDateRange(Instant start, Instant end) {
         log.debug("Obteniendo registros de limpieza entre {} y {}", start, end);
-        return cleaningRepository.findByCleaningDatetimeBetween(start, end)
-                .stream()
-                .map(CleaningResponse::fromEntity)
-                .toList();
+        return cleaningRepository.findResponsesByCleaningDatetimeBetween(start, end);
     }
 
     @Transactional(readOnly = true)
     public List<CleaningResponse> getPendingSyncCleanings() {
         log.debug("Obteniendo registros de limpieza pendientes de sincronización");
-        return cleaningRepository.findByIsSyncedFalse()
-                .stream()
-                .map(CleaningResponse::fromEntity)
-                .toList();
+        return cleaningRepository.findResponsesByIsSyncedFalse();
     }
 }
@@ -0,0 +1,69 @@
+package utez.edu.mx.backend.hotel.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores en memoria de cambios por colección, usados para calcular ETags sin consultar
+ * la base de datos. Se incrementan después del commit y parten del instante de arranque, así que
+ * un contador nunca repite un valor emitido por una ejecución anterior del servidor.
+ */
+@Service
+public class CollectionVersionService {
+
+    public enum Tracked {
+        ROOMS, INCIDENTS, ASSIGNMENTS, SETTINGS, USERS
+    }
+
+    // Colecciones de las que depende cada respuesta (incidencias y asignaciones incluyen datos
+    // de la habitación y nombres de usuarios)
+    private static final Map<Tracked, List<Tracked>> ETAG_SOURCES = Map.of(
+            Tracked.ROOMS, List.of(Tracked.ROOMS),
+            Tracked.INCIDENTS, List.of(Tracked.INCIDENTS, Tracked.ROOMS, Tracked.USERS),
+            Tracked.ASSIGNMENTS, List.of(Tracked.ASSIGNMENTS, Tracked.ROOMS, Tracked.USERS),
+            Tracked.SETTINGS, List.of(Tracked.SETTINGS),
+            Tracked.USERS, List.of(Tracked.USERS)
+    );
+
+    private final Map<Tracked, AtomicLong> counters = new EnumMap<>(Tracked.class);
+
+    public CollectionVersionService() {
+        long epoch = System.currentTimeMillis();
+        for (Tracked tracked : Tracked.values()) {
+            counters.put(tracked, new AtomicLong(epoch));
+        }
+    }
+
+    /**
+     * Marca la colección como modificada cuando la transacción actual se confirme
+     */
+    public void changed(Tracked tracked) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counters.get(tracked).incrementAndGet();
+                }
+            });
+        } else {
+            counters.get(tracked).incrementAndGet();
+        }
+    }
+
+    /**
+     * ETag fuerte de las respuestas que dependen de la colección indicada
+     */
+    public String etag(Tracked tracked) {
+        StringBuilder etag = new StringBuilder("\"").append(tracked.name().toLowerCase());
+        for (Tracked source : ETAG_SOURCES.get(tracked)) {
+            etag.append('-').append(Long.toString(counters.get(source).get(), 36));
+        }
+        return etag.append('"').toString();
+    }
+}
@@ -0,0 +1,270 @@
+package utez.edu.mx.backend.hotel.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import utez.edu.mx.backend.config.FileStorageConfig;
+import utez.edu.mx.backend.hotel.model.FileReclamation;
+import utez.edu.mx.backend.hotel.repository.FileReclamationRepository;
+import utez.edu.mx.backend.hotel.repository.PhotoBlobRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Cola persistente de archivos por borrar. Las transacciones solo insertan filas; el borrado en disco
+ * ocurre después del commit, en lotes y fuera del hilo de la petición, con reintentos si falla.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileReclamationService {
+
+    private final FileReclamationRepository reclamationRepository;
+    private final PhotoBlobRepository photoBlobRepository;
+    private final FileStorageConfig fileStorageConfig;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "file-reclamation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Indica si ya hay un borrado programado dentro de la ventana de agrupación
+    private final AtomicBoolean reclaimScheduled = new AtomicBoolean(false);
+
+    // Excluye el borrado mientras otra tarea mueve archivos (migración de estructura)
+    private final ReentrantLock reclaimLock = new ReentrantLock();
+
+    @Value("${hotel.files.reclamation.coalesce-window-ms:1000}")
+    private long coalesceWindowMillis;
+
+    @Value("${hotel.files.reclamation.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${hotel.files.reclamation.backoff-base-ms:5000}")
+    private long backoffBaseMillis;
+
+    @Value("${hotel.files.reclamation.backoff-max-ms:3600000}")
+    private long backoffMaxMillis;
+
+    /**
+     * Registra archivos para borrar cuando la transacción actual se confirme.
+     * Las carpetas se encolan después de los archivos para que ya estén vacías al procesarlas.
+     */
+    public void reclaim(Collection<String> filePaths, Collection<String> foldersIfEmpty) {
+        List<FileReclamation> entries = new ArrayList<>();
+        filePaths.forEach(path -> entries.add(FileReclamation.builder()
+                .path(path)
+                .kind(FileReclamation.Kind.FILE)
+                .build()));
+        foldersIfEmpty.forEach(path -> entries.add(FileReclamation.builder()
+                .path(path)
+                .kind(FileReclamation.Kind.FOLDER_IF_EMPTY)
+                .build()));
+        if (entries.isEmpty()) {
+            return;
+        }
+        reclamationRepository.saveAll(entries);
+        log.debug("{} rutas encoladas para borrado después del commit", entries.size());
+        reclaimAfterCommit();
+    }
+
+    private void reclaimAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    scheduleReclaim();
+                }
+            });
+        } else {
+            scheduleReclaim();
+        }
+    }
+
+    private void scheduleReclaim() {
+        if (reclaimScheduled.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                reclaimScheduled.set(false);
+                reclaimPending();
+            }, coalesceWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${hotel.files.reclamation.poll-interval-ms:60000}")
+    public void reclaimPendingScheduled() {
+        executor.execute(this::reclaimPending);
+    }
+
+    /**
+     * Ejecuta la acción sin que el borrado de archivos corra al mismo tiempo
+     */
+    public <T> T withReclamationPaused(Supplier<T> action) {
+        reclaimLock.lock();
+        try {
+            return action.get();
+        } finally {
+            reclaimLock.unlock();
+        }
+    }
+
+    /**
+     * Borra en lotes las rutas pendientes cuyo siguiente intento ya venció
+     */
+    public void reclaimPending() {
+        reclaimLock.lock();
+        try {
+            List<FileReclamation> pending;
+            while (!(pending = reclamationRepository.findTop500ByNextAttemptAtLessThanEqualOrderByIdAsc(Instant.now()))
+                    .isEmpty()) {
+                reclaimBatch(pending);
+            }
+        } catch (RuntimeException e) {
+            log.error("Error al procesar la cola de borrado de archivos", e);
+        } finally {
+            reclaimLock.unlock();
+        }
+    }
+
+    private void reclaimBatch(List<FileReclamation> pending) {
+        Path root = Paths.get(fileStorageConfig.getUploadDir()).normalize();
+        Instant now = Instant.now();
+        List<FileReclamation> done = new ArrayList<>();
+        List<FileReclamation> retry = new ArrayList<>();
+
+        for (FileReclamation entry : pending) {
+            Path path = root.resolve(entry.getPath()).normalize();
+            try {
+                if (!path.startsWith(root) || path.equals(root)) {
+                    log.warn("Ruta fuera del directorio de imágenes, se descarta: {}", entry.getPath());
+                } else if (entry.getKind() == FileReclamation.Kind.FILE && FileStorageService.isBlob(entry.getPath())) {
+                    deleteBlob(root, entry.getPath(), path);
+                } else if (entry.getKind() == FileReclamation.Kind.FILE) {
+                    deleteFile(root, entry.getPath(), path);
+                } else {
+                    deleteFolderIfEmpty(path);
+                }
+                done.add(entry);
+            } catch (IOException e) {
+                entry.setAttempts(entry.getAttempts() + 1);
+                entry.setLastError(e.getClass().getSimpleName() + ": " + e.getMessage());
+                if (entry.getAttempts() >= maxAttempts) {
+                    log.error("No se pudo eliminar {} tras {} intentos, se descarta", entry.getPath(), entry.getAttempts(), e);
+                    done.add(entry);
+                } else {
+                    entry.setNextAttemptAt(now.plusMillis(backoffFor(entry.getAttempts())));
+                    retry.add(entry);
+                    log.warn("Error al eliminar {}, se reintentará: {}", entry.getPath(), e.getMessage());
+                }
+            }
+        }
+
+        reclamationRepository.deleteAllInBatch(done);
+        reclamationRepository.saveAll(retry);
+    }
+
+    /**
+     * Borra un blob solo si no volvió a referenciarse. La consulta y el borrado comparten una transacción
+     * que bloquea el registro del hash (o el hueco donde iría): una carga simultánea de la misma foto
+     * espera al commit y, al no encontrar el archivo, lo vuelve a escribir.
+     */
+    private void deleteBlob(Path root, String filePath, Path path) throws IOException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!photoBlobRepository.lockByHashes(List.of(FileStorageService.blobHash(filePath))).isEmpty()) {
+                    // La misma foto se volvió a subir antes del borrado y reutiliza este archivo
+                    log.debug("El blob {} volvió a referenciarse, no se elimina", filePath);
+                    return;
+                }
+                try {
+                    deleteFile(root, filePath, path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void deleteFile(Path root, String filePath, Path path) throws IOException {
+        if (!Files.exists(path) && FileStorageService.isFlat(filePath)) {
+            // La foto se migró a la estructura por subcarpetas después de encolarse
+            Path shardedPath = root.resolve(FileStorageService.shardedUrl(filePath)).normalize();
+            if (shardedPath.startsWith(root)) {
+                filePath = FileStorageService.shardedUrl(filePath);
+                path = shardedPath;
+            }
+        }
+        if (Files.deleteIfExists(path)) {
+            log.info("Archivo eliminado: {}", path.toAbsolutePath());
+        }
+        if (FileStorageService.isSharded(filePath)) {
+            pruneEmptyShards(path);
+        }
+    }
+
+    /**
+     * Borra las subcarpetas de la estructura por hash que quedaron vacías. No lista directorios:
+     * el borrado falla en cuanto una carpeta aún tiene archivos.
+     */
+    private void pruneEmptyShards(Path file) {
+        Path shard = file.getParent();
+        for (int level = 0; level < FileStorageService.SHARD_LEVELS && shard != null; level++) {
+            try {
+                Files.delete(shard);
+            } catch (DirectoryNotEmptyException | NoSuchFileException e) {
+                return;
+            } catch (IOException e) {
+                log.debug("No se pudo eliminar la subcarpeta {}: {}", shard, e.getMessage());
+                return;
+            }
+            shard = shard.getParent();
+        }
+    }
+
+    private void deleteFolderIfEmpty(Path folder) throws IOException {
+        if (!Files.isDirectory(folder)) {
+            return;
+        }
+        try {
+            Files.delete(folder);
+            log.info("Carpeta vacía eliminada: {}", folder.toAbsolutePath());
+        } catch (DirectoryNotEmptyException e) {
+            log.debug("La carpeta no está vacía, no se eliminará: {}", folder.toAbsolutePath());
+        }
+    }
+
+    private long backoffFor(int attempts) {
+        long delay = backoffBaseMillis << Math.min(attempts - 1, 20);
+        return Math.min(delay, backoffMaxMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
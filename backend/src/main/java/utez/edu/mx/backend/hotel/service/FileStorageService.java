@@ -1,26 +1,119 @@
 package utez.edu.mx.backend.hotel.service;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import utez.edu.mx.backend.config.FileStorageConfig;
+import utez.edu.mx.backend.hotel.repository.PhotoBlobRepository;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FileStorageService {
 
+    // Carpeta (dentro de uploadDir) del almacén por contenido
+    public static final String BLOB_FOLDER = "blobs";
+    // Niveles de subcarpetas y caracteres del nombre usados en cada nivel
+    public static final int SHARD_LEVELS = 2;
+    private static final int SHARD_WIDTH = 2;
+
     private final FileStorageConfig fileStorageConfig;
+    private final PhotoBlobRepository photoBlobRepository;
+    private final ImageVariantService imageVariantService;
+    private final FileReclamationService fileReclamationService;
+
+    @Value("${hotel.incidents.photos.content-addressed:true}")
+    private boolean contentAddressed;
+
+    @Value("${hotel.incidents.photos.max-file-size-bytes:10485760}")
+    private long maxFileSizeBytes;
+
+    @Value("${hotel.incidents.photos.max-files:10}")
+    private int maxFilesPerUpload;
+
+    // Archivo validado, listo para guardarse
+    private record Inspection(MultipartFile file, ImageType type, String hash) {}
+
+    /**
+     * Formatos de imagen aceptados, identificados por sus bytes mágicos
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum ImageType {
+        JPEG(".jpg", "image/jpeg", true),
+        PNG(".png", "image/png", true),
+        GIF(".gif", "image/gif", true),
+        WEBP(".webp", "image/webp", false),
+        HEIC(".heic", "image/heic", false);
+
+        static final int HEADER_LENGTH = 12;
+
+        private final String extension;
+        private final String mimeType;
+        // ImageIO puede leerlo para generar variantes
+        private final boolean resizable;
+
+        static Optional<ImageType> detect(byte[] header) {
+            if (startsWith(header, 0, 0xFF, 0xD8, 0xFF)) {
+                return Optional.of(JPEG);
+            }
+            if (startsWith(header, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+                return Optional.of(PNG);
+            }
+            if (startsWith(header, 0, 'G', 'I', 'F', '8')) {
+                return Optional.of(GIF);
+            }
+            if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P')) {
+                return Optional.of(WEBP);
+            }
+            // Contenedor ISO BMFF: "ftyp" seguido de la marca HEIF/HEIC
+            if (startsWith(header, 4, 'f', 't', 'y', 'p') && (startsWith(header, 8, 'h', 'e', 'i')
+                    || startsWith(header, 8, 'h', 'e', 'v') || startsWith(header, 8, 'm', 'i', 'f', '1'))) {
+                return Optional.of(HEIC);
+            }
+            return Optional.empty();
+        }
+
+        private static boolean startsWith(byte[] header, int offset, int... signature) {
+            if (header.length < offset + signature.length) {
+                return false;
+            }
+            for (int i = 0; i < signature.length; i++) {
+                if ((header[offset + i] & 0xFF) != signature[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 
     /**
      * Genera el identificador de carpeta para una habitación
@@ -32,7 +125,9 @@ public class FileStorageService {
     }
 
     /**
-     * Guarda múltiples archivos en la carpeta de la habitación
+     * Guarda múltiples archivos en la carpeta de la habitación, o en el almacén por contenido
+     * si está activo (en ese caso una foto repetida solo suma una referencia).
+     * Todos los archivos se validan (tipo real y tamaño) antes de escribir el primero.
      */
     public List<String> saveFiles(MultipartFile[] files, String roomFolder) throws IOException {
         log.info("Iniciando guardado de {} archivos para la carpeta {}", files != null ? files.length : 0, roomFolder);
@@ -43,89 +138,316 @@ public class FileStorageService {
             return savedFilePaths;
         }
 
-        // Crear directorio de la habitación si no existe
-        Path roomPath = Paths.get(fileStorageConfig.getUploadDir(), roomFolder);
-        if (!Files.exists(roomPath)) {
-            Files.createDirectories(roomPath);
-            log.info("Directorio creado para habitación: {}", roomPath.toAbsolutePath());
-        }
-
-        // Guardar cada archivo
+        // Validar tipo y tamaño de cada archivo (y calcular su hash en la misma lectura)
+        List<Inspection> accepted = new ArrayList<>();
         for (MultipartFile file : files) {
             if (file.isEmpty()) {
                 continue;
             }
+            if (file.getSize() > maxFileSizeBytes) {
+                throw new IllegalArgumentException(String.format(
+                        "El archivo %s excede el tamaño máximo de %d bytes", file.getOriginalFilename(), maxFileSizeBytes));
+            }
+            accepted.add(inspect(file));
+        }
+        if (accepted.size() > maxFilesPerUpload) {
+            throw new IllegalArgumentException(String.format(
+                    "No se pueden adjuntar más de %d fotos por incidencia", maxFilesPerUpload));
+        }
 
-            // Generar nombre único para el archivo
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = "";
-            if (originalFilename != null && originalFilename.contains(".")) {
-                fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        // Guardar cada archivo
+        try {
+            for (Inspection inspection : accepted) {
+                String relativePath = contentAddressed
+                        ? storeBlob(inspection)
+                        : storeInFolder(inspection, roomFolder);
+                savedFilePaths.add(relativePath);
             }
-            String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
+        } catch (IOException | RuntimeException e) {
+            // No dejar archivos huérfanos ni referencias de una carga incompleta
+            discardUpload(savedFilePaths);
+            throw e;
+        }
 
-            // Guardar archivo
-            Path filePath = roomPath.resolve(uniqueFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        // Miniatura y versión mediana se generan fuera de la petición
+        imageVariantService.generateAfterCommit(savedFilePaths);
+        return savedFilePaths;
+    }
+
+    private String storeInFolder(Inspection inspection, String roomFolder) throws IOException {
+        // Nombre único con la extensión del tipo detectado, no la que envía el cliente
+        String uniqueFilename = UUID.randomUUID() + inspection.type().getExtension();
+        String relativePath = shardedUrl(roomFolder + "/" + uniqueFilename);
+        Path filePath = createParentDirectories(relativePath);
+        transfer(inspection.file(), filePath);
+        log.info("Archivo guardado: {}", filePath.toAbsolutePath());
+        return relativePath;
+    }
 
-            // Guardar ruta relativa
-            String relativePath = roomFolder + "/" + uniqueFilename;
-            savedFilePaths.add(relativePath);
+    /**
+     * Guarda el archivo con su hash como nombre. Si el contenido ya existía no se escribe nada
+     * y solo se suma una referencia al blob.
+     */
+    private String storeBlob(Inspection inspection) throws IOException {
+        // Si el contenido ya existía se reutiliza la URL guardada, aunque sea de la estructura plana
+        String relativePath = photoBlobRepository.acquire(inspection.hash(),
+                shardedUrl(BLOB_FOLDER + "/" + inspection.hash() + inspection.type().getExtension()),
+                inspection.file().getSize(), inspection.type().getMimeType(), Instant.now());
 
-            log.info("Archivo guardado: {}", filePath.toAbsolutePath());
+        Path filePath = createParentDirectories(relativePath);
+        if (Files.exists(filePath)) {
+            log.info("Foto duplicada, se reutiliza el blob existente: {}", relativePath);
+        } else {
+            transfer(inspection.file(), filePath);
+            log.info("Blob guardado: {}", filePath.toAbsolutePath());
         }
+        return relativePath;
+    }
 
-        return savedFilePaths;
+    private Path createParentDirectories(String relativePath) throws IOException {
+        Path filePath = loadFile(relativePath);
+        Files.createDirectories(filePath.getParent());
+        return filePath;
+    }
+
+    /**
+     * Ruta con dos niveles de subcarpetas tomados del nombre (hash o UUID):
+     * HTL-3-305/ab12cd.jpg -> HTL-3-305/ab/12/ab12cd.jpg. Así ningún directorio acumula
+     * más de 256 entradas por nivel y las operaciones no dependen del total de fotos.
+     * Solo acepta rutas planas (carpeta/archivo); consultar antes con isFlat.
+     */
+    public static String shardedUrl(String photoUrl) {
+        if (!isFlat(photoUrl)) {
+            throw new IllegalArgumentException("La ruta no tiene la forma carpeta/archivo: " + photoUrl);
+        }
+        int slash = photoUrl.indexOf('/');
+        String filename = photoUrl.substring(slash + 1);
+        return photoUrl.substring(0, slash) + "/" + filename.substring(0, SHARD_WIDTH) + "/"
+                + filename.substring(SHARD_WIDTH, 2 * SHARD_WIDTH) + "/" + filename;
+    }
+
+    /**
+     * Indica si la ruta está en la estructura plana (carpeta/archivo) y puede repartirse en subcarpetas
+     */
+    public static boolean isFlat(String photoUrl) {
+        String[] parts = photoUrl.split("/", -1);
+        return parts.length == 2 && !parts[0].isEmpty() && parts[1].length() >= 2 * SHARD_WIDTH;
+    }
+
+    public static boolean isSharded(String photoUrl) {
+        return photoUrl.chars().filter(c -> c == '/').count() == SHARD_LEVELS + 1;
+    }
+
+    /**
+     * URL vigente de una foto. Para un blob es la que guarda su registro (la misma que usan las
+     * referencias); para las demás, la ruta por subcarpetas si el archivo ya se migró.
+     */
+    public String currentUrl(String photoUrl) {
+        if (isBlob(photoUrl)) {
+            String storedUrl = photoBlobRepository.findPhotoUrlByHash(blobHash(photoUrl));
+            return storedUrl != null ? storedUrl : photoUrl;
+        }
+        if (!isFlat(photoUrl) || Files.exists(loadFile(photoUrl))) {
+            return photoUrl;
+        }
+        String shardedUrl = shardedUrl(photoUrl);
+        return Files.exists(loadFile(shardedUrl)) ? shardedUrl : photoUrl;
+    }
+
+    /**
+     * Mueve una foto (y sus variantes) de la estructura plana a la estructura por subcarpetas.
+     * Es idempotente: si ya se movió devuelve la nueva ruta; si el archivo no existe devuelve null.
+     * La ruta debe ser plana (isFlat).
+     */
+    public String moveToShardedLayout(String photoUrl) throws IOException {
+        String shardedUrl = shardedUrl(photoUrl);
+        Path source = loadFile(photoUrl);
+        Path target = loadFile(shardedUrl);
+        if (!Files.exists(source)) {
+            return Files.exists(target) ? shardedUrl : null;
+        }
+
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        List<String> sourceVariants = imageVariantService.variantUrls(photoUrl);
+        List<String> targetVariants = imageVariantService.variantUrls(shardedUrl);
+        for (int i = 0; i < sourceVariants.size(); i++) {
+            Path variant = loadFile(sourceVariants.get(i));
+            if (Files.exists(variant)) {
+                Files.move(variant, loadFile(targetVariants.get(i)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return shardedUrl;
+    }
+
+    /**
+     * Bloquea hasta el commit los blobs de las URLs indicadas y devuelve los hashes que existen.
+     * Solo un blob con registro puede volver a usarse en otra incidencia: las fotos de carpeta no
+     * llevan conteo de referencias y resolver cualquiera de las dos incidencias borraría el archivo.
+     */
+    public Set<String> lockExistingBlobs(Collection<String> photoUrls) {
+        Set<String> hashes = photoUrls.stream()
+                .filter(FileStorageService::isBlob)
+                .map(FileStorageService::blobHash)
+                .collect(Collectors.toSet());
+        return hashes.isEmpty() ? Set.of() : new HashSet<>(photoBlobRepository.lockByHashes(hashes));
+    }
+
+    /**
+     * Indica si la URL es de un blob devuelto por lockExistingBlobs
+     */
+    public static boolean isLockedBlob(String photoUrl, Set<String> lockedHashes) {
+        return isBlob(photoUrl) && lockedHashes.contains(blobHash(photoUrl));
+    }
+
+    /**
+     * Suma una referencia por cada URL de blob recibida (fotos ya subidas que se vuelven a usar).
+     * Los blobs deben estar bloqueados con lockExistingBlobs.
+     */
+    public void retainFiles(List<String> photoUrls) {
+        if (photoUrls == null || photoUrls.isEmpty()) {
+            return;
+        }
+        photoUrls.stream()
+                .filter(FileStorageService::isBlob)
+                .collect(Collectors.groupingBy(FileStorageService::blobHash, Collectors.counting()))
+                .forEach((hash, count) -> photoBlobRepository.retain(hash, count.intValue()));
+    }
+
+    public static boolean isBlob(String photoUrl) {
+        return photoUrl.startsWith(BLOB_FOLDER + "/");
+    }
+
+    /**
+     * Hash de un blob a partir de su URL, en cualquier estructura: blobs/ab/12/ab12cd.jpg -> ab12cd.
+     * Las variantes (ab12cd.thumb.jpg) comparten el hash del original.
+     */
+    public static String blobHash(String blobUrl) {
+        String filename = blobUrl.substring(blobUrl.lastIndexOf('/') + 1);
+        int dot = filename.indexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    /**
+     * Detecta el tipo real de imagen a partir de los bytes mágicos del archivo y, en modo
+     * por contenido, calcula el SHA-256 en la misma lectura
+     */
+    private Inspection inspect(MultipartFile file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] header;
+        try (InputStream in = contentAddressed
+                ? new DigestInputStream(file.getInputStream(), digest)
+                : file.getInputStream()) {
+            header = in.readNBytes(ImageType.HEADER_LENGTH);
+            if (contentAddressed) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        ImageType type = ImageType.detect(header)
+                .orElseThrow(() -> new IllegalArgumentException(String.format(
+                        "El archivo %s no es una imagen permitida (JPEG, PNG, WEBP, GIF o HEIC)",
+                        file.getOriginalFilename())));
+        return new Inspection(file, type, contentAddressed ? HexFormat.of().formatHex(digest.digest()) : null);
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
     }
 
     /**
-     * Elimina todos los archivos de una incidencia
+     * Mueve el archivo al destino. Con el multipart del contenedor el temporal ya está en disco
+     * (spring.servlet.multipart.location, mismo volumen que las imágenes) y se renombra sin
+     * volver a copiar los bytes; si no es posible se copia canal a canal.
+     */
+    private void transfer(MultipartFile file, Path target) throws IOException {
+        try {
+            file.transferTo(target.toFile());
+            if (Files.exists(target)) {
+                return;
+            }
+        } catch (IllegalStateException e) {
+            log.debug("No se pudo mover el temporal de {}, se copiará: {}", file.getOriginalFilename(), e.getMessage());
+        }
+        try (ReadableByteChannel source = Channels.newChannel(file.getInputStream());
+             FileChannel destination = FileChannel.open(target,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = file.getSize();
+            long position = 0;
+            while (position < size) {
+                long transferred = destination.transferFrom(source, position, size - position);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * Elimina todos los archivos de una incidencia (y sus variantes).
+     * Las referencias se liberan en la transacción actual y el borrado en disco se encola para después del commit.
      */
     public void deleteIncidentFiles(List<String> photoUrls) {
         if (photoUrls == null || photoUrls.isEmpty()) {
             log.debug("No hay URLs de fotos para eliminar.");
             return;
         }
-        log.info("Iniciando eliminación de {} archivos de incidencia.", photoUrls.size());
+        log.info("Encolando eliminación de {} archivos de incidencia.", photoUrls.size());
+
+        List<String> paths = new ArrayList<>();
+        for (String photoUrl : releaseFiles(photoUrls)) {
+            paths.add(photoUrl);
+            paths.addAll(imageVariantService.variantUrls(photoUrl));
+        }
+        fileReclamationService.reclaim(paths, List.of());
+    }
 
+    /**
+     * Libera las referencias de las fotos y devuelve las que ya nadie usa.
+     * Un blob compartido solo se libera cuando se va su última referencia.
+     */
+    private List<String> releaseFiles(List<String> photoUrls) {
+        List<String> unreferenced = new ArrayList<>();
         for (String photoUrl : photoUrls) {
-            try {
-                Path filePath = Paths.get(fileStorageConfig.getUploadDir(), photoUrl);
-                if (Files.exists(filePath)) {
-                    Files.delete(filePath);
-                    log.info("Archivo eliminado: {}", filePath.toAbsolutePath());
-                } else {
-                    log.warn("Se intentó eliminar un archivo que no existe: {}", filePath.toAbsolutePath());
+            if (isBlob(photoUrl)) {
+                String hash = blobHash(photoUrl);
+                photoBlobRepository.release(hash);
+                if (photoBlobRepository.deleteIfUnreferenced(hash) == 0) {
+                    log.debug("El blob {} sigue referenciado, no se elimina", photoUrl);
+                    continue;
                 }
-            } catch (IOException e) {
-                log.error("Error al eliminar archivo: {}", photoUrl, e);
             }
+            unreferenced.add(photoUrl);
         }
+        return unreferenced;
     }
 
     /**
-     * Elimina toda la carpeta de una habitación si está vacía
+     * Borra en el momento los archivos de una carga que falló: ninguna fila confirmada los referencia
+     * y aún no tienen variantes
      */
-    public void deleteRoomFolderIfEmpty(String roomFolder) {
-        log.info("Intentando eliminar la carpeta de la habitación si está vacía: {}", roomFolder);
-        try {
-            Path roomPath = Paths.get(fileStorageConfig.getUploadDir(), roomFolder);
-            if (Files.exists(roomPath) && Files.isDirectory(roomPath)) {
-                // Verificar si la carpeta está vacía
-                try (var stream = Files.list(roomPath)) {
-                    if (stream.findAny().isEmpty()) {
-                        Files.delete(roomPath);
-                        log.info("Carpeta vacía eliminada: {}", roomPath.toAbsolutePath());
-                    } else {
-                        log.debug("La carpeta de la habitación no está vacía, no se eliminará: {}", roomPath.toAbsolutePath());
-                    }
-                }
+    private void discardUpload(List<String> savedFilePaths) {
+        for (String photoUrl : releaseFiles(savedFilePaths)) {
+            try {
+                Files.deleteIfExists(Paths.get(fileStorageConfig.getUploadDir(), photoUrl));
+            } catch (IOException e) {
+                log.error("Error al eliminar archivo de una carga fallida: {}", photoUrl, e);
             }
-        } catch (IOException e) {
-            log.error("Error al eliminar carpeta de habitación: {}", roomFolder, e);
         }
     }
 
+    /**
+     * Elimina toda la carpeta de una habitación si está vacía, después del commit
+     */
+    public void deleteRoomFolderIfEmpty(String roomFolder) {
+        log.info("Encolando eliminación de la carpeta de la habitación si está vacía: {}", roomFolder);
+        fileReclamationService.reclaim(List.of(), List.of(roomFolder));
+    }
+
     /**
      * Obtiene el archivo físico
      */
@@ -133,4 +455,13 @@ public class FileStorageService {
         log.debug("Cargando archivo: {}", filename);
         return Paths.get(fileStorageConfig.getUploadDir()).resolve(filename).normalize();
     }
+
+    /**
+     * Tipo real de un archivo ya guardado, leyendo solo su cabecera
+     */
+    public static Optional<ImageType> detectImageType(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return ImageType.detect(in.readNBytes(ImageType.HEADER_LENGTH));
+        }
+    }
 }
@@ -4,13 +4,16 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import utez.edu.mx.backend.hotel.dto.BulkCleaningScheduleRequest;
+import utez.edu.mx.backend.hotel.dto.BulkCleaningScheduleResponse;
 import utez.edu.mx.backend.hotel.dto.HotelSettingsRequest;
 import utez.edu.mx.backend.hotel.dto.HotelSettingsResponse;
 import utez.edu.mx.backend.hotel.model.HotelSettings;
-import utez.edu.mx.backend.hotel.model.Room;
 import utez.edu.mx.backend.hotel.repository.HotelSettingsRepository;
 import utez.edu.mx.backend.hotel.repository.RoomRepository;
+import utez.edu.mx.backend.hotel.scheduler.CleaningDeadlineScheduler;
 
+import java.time.Instant;
 import java.util.List;
 
 @Slf4j
@@ -19,6 +22,9 @@ import java.util.List;
 public class HotelSettingsService {
     private final HotelSettingsRepository hotelSettingsRepository;
     private final RoomRepository roomRepository;
+    private final CleaningDeadlineScheduler cleaningDeadlineScheduler;
+    private final RoomChangeTracker roomChangeTracker;
+    private final CollectionVersionService collectionVersionService;
 
     @Transactional(readOnly = true)
     public HotelSettingsResponse getSettings() {
@@ -39,18 +45,46 @@ public class HotelSettingsService {
 
         HotelSettings savedSettings = hotelSettingsRepository.save(settings);
 
-        List<Room> allRooms = roomRepository.findAll();
-        int updatedCount = 0;
-
-        for (Room room : allRooms) {
-            room.setScheduledCleaningTime(request.cleaningStartTime());
-            roomRepository.save(room);
-            updatedCount++;
-        }
+        // Una sola sentencia UPDATE en lugar de cargar y guardar cada habitación
+        int updatedCount = roomRepository.updateScheduledCleaningTimeForAll(
+                request.cleaningStartTime(), Instant.now(), roomChangeTracker.nextVersion());
+        cleaningDeadlineScheduler.scheduleAll();
+        collectionVersionService.changed(CollectionVersionService.Tracked.ROOMS);
 
         log.info("Horario por defecto actualizado a {}. Se actualizaron {} habitaciones",
                 request.cleaningStartTime(), updatedCount);
 
         return HotelSettingsResponse.fromEntity(savedSettings);
     }
+
+    /**
+     * Cambia el horario de limpieza de un piso o de un conjunto de habitaciones, sin modificar el
+     * horario por defecto del hotel (para todas las habitaciones se usa updateSettings).
+     * Se debe indicar exactamente uno de los dos filtros.
+     */
+    @Transactional
+    public BulkCleaningScheduleResponse updateCleaningSchedule(BulkCleaningScheduleRequest request) {
+        boolean byRooms = request.roomIds() != null && !request.roomIds().isEmpty();
+        boolean byFloor = request.floor() != null && !request.floor().isBlank();
+        if (byRooms == byFloor) {
+            throw new IllegalArgumentException("Debe indicar un piso o una lista de habitaciones, pero no ambos");
+        }
+
+        // Solo se actualizan y reprograman las habitaciones que existen
+        List<Long> roomIds = byRooms
+                ? roomRepository.findExistingIds(request.roomIds())
+                : roomRepository.findIdsByFloor(request.floor());
+        int updatedCount = 0;
+        if (!roomIds.isEmpty()) {
+            updatedCount = roomRepository.updateScheduledCleaningTimeForRooms(
+                    roomIds, request.cleaningTime(), Instant.now(), roomChangeTracker.nextVersion());
+            roomIds.forEach(roomId -> cleaningDeadlineScheduler.schedule(roomId, request.cleaningTime()));
+            collectionVersionService.changed(CollectionVersionService.Tracked.ROOMS);
+        }
+
+        log.info("Horario de limpieza {} aplicado a {} habitaciones (piso: {}, habitaciones: {})",
+                request.cleaningTime(), updatedCount, request.floor(), byRooms ? request.roomIds().size() : 0);
+
+        return new BulkCleaningScheduleResponse(request.cleaningTime(), request.floor(), updatedCount);
+    }
 }
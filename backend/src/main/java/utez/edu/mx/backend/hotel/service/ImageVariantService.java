@@ -0,0 +1,272 @@
+package utez.edu.mx.backend.hotel.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import utez.edu.mx.backend.config.FileStorageConfig;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Genera en segundo plano versiones reducidas (miniatura y mediana) de las fotos de incidencias
+ * y elige la más pequeña que cubre el tamaño pedido al servirlas.
+ * Las variantes se guardan junto al original como nombre.thumb.jpg y nombre.medium.jpg.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageVariantService {
+
+    private final FileStorageConfig fileStorageConfig;
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private ExecutorService executor;
+
+    // Fotos con una generación ya encolada, para no repetir trabajo
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${hotel.incidents.photos.variants.threads:2}")
+    private int threads;
+
+    @Value("${hotel.incidents.photos.variants.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    /**
+     * Variantes de menor a mayor; maxDimension es el lado más largo en píxeles
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Variant {
+        THUMB("thumb", 320),
+        MEDIUM("medium", 1280);
+
+        private final String suffix;
+        private final int maxDimension;
+    }
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "image-variants-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Encola la generación de variantes cuando la transacción actual se confirme
+     */
+    public void generateAfterCommit(List<String> photoUrls) {
+        if (photoUrls == null || photoUrls.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    photoUrls.forEach(ImageVariantService.this::enqueue);
+                }
+            });
+        } else {
+            photoUrls.forEach(this::enqueue);
+        }
+    }
+
+    /**
+     * Archivo a servir y su tipo real. immutable indica que la URL pedida siempre devolverá
+     * este mismo contenido; es false mientras la variante pedida aún no se genera.
+     */
+    public record ServedImage(Path path, FileStorageService.ImageType type, boolean immutable) {}
+
+    /**
+     * Archivo a servir para un tamaño pedido: la variante más pequeña cuyo lado mayor cubre size.
+     * Si esa variante aún no existe se sirve el original y se encola su generación.
+     * Devuelve null si la foto no existe.
+     */
+    public ServedImage resolve(String photoUrl, Integer size) throws IOException {
+        // Las URL anteriores a la estructura por subcarpetas siguen funcionando después de migrar
+        if (FileStorageService.isFlat(photoUrl) && !Files.exists(originalPath(photoUrl))) {
+            photoUrl = FileStorageService.shardedUrl(photoUrl);
+        }
+        Path original = originalPath(photoUrl);
+        if (!original.startsWith(uploadRoot()) || !Files.isRegularFile(original)) {
+            return null;
+        }
+        FileStorageService.ImageType type = FileStorageService.detectImageType(original).orElse(null);
+        if (size == null || size <= 0) {
+            return new ServedImage(original, type, true);
+        }
+        for (Variant variant : Variant.values()) {
+            if (variant.getMaxDimension() >= size) {
+                Path variantPath = variantPath(photoUrl, variant);
+                if (Files.exists(variantPath)) {
+                    return new ServedImage(variantPath, FileStorageService.ImageType.JPEG, true);
+                }
+                if (type == null || !type.isResizable()) {
+                    // Nunca tendrá variantes: el original es la respuesta definitiva
+                    return new ServedImage(original, type, true);
+                }
+                enqueue(photoUrl);
+                return new ServedImage(original, type, false);
+            }
+        }
+        return new ServedImage(original, type, true);
+    }
+
+    /**
+     * Rutas relativas de las variantes de una foto, para borrarlas junto con el original
+     */
+    public List<String> variantUrls(String photoUrl) {
+        int dot = photoUrl.lastIndexOf('.');
+        int slash = photoUrl.lastIndexOf('/');
+        String base = dot > slash ? photoUrl.substring(0, dot) : photoUrl;
+        return Arrays.stream(Variant.values())
+                .map(variant -> base + "." + variant.getSuffix() + ".jpg")
+                .toList();
+    }
+
+    private void enqueue(String photoUrl) {
+        if (inFlight.add(photoUrl)) {
+            executor.execute(() -> {
+                try {
+                    generate(photoUrl);
+                } finally {
+                    inFlight.remove(photoUrl);
+                }
+            });
+        }
+    }
+
+    private void generate(String photoUrl) {
+        Path original = originalPath(photoUrl);
+        try {
+            BufferedImage source = ImageIO.read(original.toFile());
+            if (source == null) {
+                // Formatos sin lector en ImageIO (WEBP, HEIC): se sirve siempre el original
+                log.debug("Sin lector de imagen para {}, no se generan variantes", photoUrl);
+                return;
+            }
+            int longestSide = Math.max(source.getWidth(), source.getHeight());
+            boolean jpeg = FileStorageService.detectImageType(original).orElse(null) == FileStorageService.ImageType.JPEG;
+            for (Variant variant : Variant.values()) {
+                Path target = variantPath(photoUrl, variant);
+                if (Files.exists(target)) {
+                    continue;
+                }
+                if (longestSide > variant.getMaxDimension()) {
+                    writeJpeg(scale(source, variant.getMaxDimension()), target);
+                } else if (jpeg) {
+                    // La foto ya es más pequeña que la variante: se enlaza el original sin duplicarlo
+                    linkOrCopy(original, target);
+                } else {
+                    // PNG/GIF pequeños se recodifican a JPEG a su tamaño original
+                    writeJpeg(scale(source, longestSide), target);
+                }
+            }
+            log.debug("Variantes generadas para {}", photoUrl);
+        } catch (IOException | RuntimeException e) {
+            log.error("Error al generar variantes de {}", photoUrl, e);
+        }
+    }
+
+    /**
+     * Reduce a la mitad en pasos sucesivos y ajusta al final; evita el aliasing de una sola reducción grande
+     */
+    private BufferedImage scale(BufferedImage source, int maxDimension) {
+        double ratio = (double) maxDimension / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // Fondo blanco para imágenes con transparencia (PNG/GIF)
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        // Se escribe a un temporal y se mueve, para no servir nunca una variante a medio escribir
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+            ImageWriteParam params = writer.getDefaultWriteParam();
+            params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            params.setCompressionQuality(jpegQuality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), params);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void linkOrCopy(Path original, Path target) throws IOException {
+        try {
+            Files.createLink(target, original);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(original, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path uploadRoot() {
+        return Paths.get(fileStorageConfig.getUploadDir()).normalize();
+    }
+
+    private Path originalPath(String photoUrl) {
+        return uploadRoot().resolve(photoUrl).normalize();
+    }
+
+    private Path variantPath(String photoUrl, Variant variant) {
+        return originalPath(variantUrls(photoUrl).get(variant.ordinal()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
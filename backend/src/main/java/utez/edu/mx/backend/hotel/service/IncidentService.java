@@ -2,27 +2,33 @@ package utez.edu.mx.backend.hotel.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import utez.edu.mx.backend.User.model.User;
-import utez.edu.mx.backend.User.model.UserRepository;
 import utez.edu.mx.backend.hotel.dto.CreateIncidentRequest;
+import utez.edu.mx.backend.hotel.dto.IncidentPageResponse;
 import utez.edu.mx.backend.hotel.dto.IncidentResponse;
 import utez.edu.mx.backend.hotel.dto.UpdateIncidentStatusRequest;
 import utez.edu.mx.backend.hotel.model.Incident;
 import utez.edu.mx.backend.hotel.model.IncidentPhoto;
 import utez.edu.mx.backend.hotel.model.Room;
+import utez.edu.mx.backend.hotel.repository.IncidentPhotoRepository;
 import utez.edu.mx.backend.hotel.repository.IncidentRepository;
 import utez.edu.mx.backend.hotel.repository.RoomRepository;
+import utez.edu.mx.backend.notification.dto.NotificationRecipient;
 import utez.edu.mx.backend.notification.model.Notification;
+import utez.edu.mx.backend.notification.service.AdminRecipientCache;
 import utez.edu.mx.backend.notification.service.NotificationService;
 
 import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -30,10 +36,19 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class IncidentService {
     private final IncidentRepository incidentRepository;
+    private final IncidentPhotoRepository incidentPhotoRepository;
     private final RoomRepository roomRepository;
-    private final UserRepository userRepository;
+    private final AdminRecipientCache adminRecipientCache;
     private final FileStorageService fileStorageService;
     private final NotificationService notificationService;
+    private final RoomEventService roomEventService;
+    private final RoomChangeTracker roomChangeTracker;
+
+    @Value("${hotel.incidents.search.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${hotel.incidents.search.max-page-size:200}")
+    private int maxPageSize;
 
     /**
      * Crea una incidencia con archivos de foto (Multipart)
@@ -54,6 +69,10 @@ public class IncidentService {
         // Guardar archivos físicos
         List<String> savedPhotoPaths = fileStorageService.saveFiles(photos, roomFolder);
 
+        // Tomar la versión antes del INSERT: su clave foránea bloquea la habitación y el contador
+        // siempre se bloquea primero
+        long version = roomChangeTracker.nextVersion();
+
         // Crear incidencia
         Incident incident = Incident.builder()
                 .room(room)
@@ -81,21 +100,21 @@ public class IncidentService {
         // Bloquear la habitación por incidencia
         room.setCurrentStatus(Room.RoomStatus.BLOQUEADA_INCIDENCIA);
         room.setLastStatusChange(Instant.now());
+        room.setChangeVersion(version);
         roomRepository.save(room);
+        roomEventService.publish(room);
 
         log.info("Incidencia creada para habitación {} con {} fotos. Habitación bloqueada.",
                 room.getRoomNumber(), savedPhotoPaths.size());
 
         // Enviar notificación a todos los administradores
-        List<User> admins = userRepository.findAll().stream()
-                .filter(u -> u.getRole() == User.Role.ADMIN)
-                .toList();
+        List<NotificationRecipient> admins = adminRecipientCache.getAdmins();
 
         if (!admins.isEmpty()) {
             String notificationTitle = "Nueva incidencia reportada";
             String notificationBody = String.format("Habitación %s - Piso %s: %s",
                     room.getRoomNumber(), room.getFloor(), title);
-            notificationService.createAndSendNotificationToMultiple(
+            notificationService.createAndSendNotificationToRecipients(
                     admins,
                     notificationTitle,
                     notificationBody,
@@ -118,6 +137,10 @@ public class IncidentService {
         Room room = roomRepository.findById(request.roomId())
                 .orElseThrow(() -> new IllegalArgumentException("Habitación no encontrada"));
 
+        // Tomar la versión antes del INSERT: su clave foránea bloquea la habitación y el contador
+        // siempre se bloquea primero
+        long version = roomChangeTracker.nextVersion();
+
         // Crear incidencia
         Incident incident = Incident.builder()
                 .room(room)
@@ -147,18 +170,18 @@ public class IncidentService {
         // Bloquear la habitación por incidencia
         room.setCurrentStatus(Room.RoomStatus.BLOQUEADA_INCIDENCIA);
         room.setLastStatusChange(Instant.now());
+        room.setChangeVersion(version);
         roomRepository.save(room);
+        roomEventService.publish(room);
 
         // Enviar notificación a todos los administradores
-        List<User> admins = userRepository.findAll().stream()
-                .filter(u -> u.getRole() == User.Role.ADMIN)
-                .toList();
+        List<NotificationRecipient> admins = adminRecipientCache.getAdmins();
 
         if (!admins.isEmpty()) {
             String notificationTitle = "Nueva incidencia reportada";
             String notificationBody = String.format("Habitación %s - Piso %s: %s",
                     room.getRoomNumber(), room.getFloor(), savedIncident.getTitle());
-            notificationService.createAndSendNotificationToMultiple(
+            notificationService.createAndSendNotificationToRecipients(
                     admins,
                     notificationTitle,
                     notificationBody,
@@ -201,7 +224,9 @@ public class IncidentService {
             // Cambiar estado de la habitación a PENDIENTE_LIMPIEZA
             room.setCurrentStatus(Room.RoomStatus.PENDIENTE_LIMPIEZA);
             room.setLastStatusChange(Instant.now());
+            room.setChangeVersion(roomChangeTracker.nextVersion());
             roomRepository.save(room);
+            roomEventService.publish(room);
 
             log.info("Incidencia {} resuelta. Fotos eliminadas. Habitación {} cambiada a PENDIENTE_LIMPIEZA",
                     id, room.getRoomNumber());
@@ -213,40 +238,71 @@ public class IncidentService {
 
     @Transactional(readOnly = true)
     public List<IncidentResponse> getAllIncidents() {
-        return incidentRepository.findAll()
-                .stream()
-                .map(IncidentResponse::fromEntity)
-                .toList();
+        return withPhotoUrls(incidentRepository.findAllResponses());
+    }
+
+    /**
+     * Búsqueda paginada por cursor: una consulta de proyección para la página y una consulta IN para sus fotos
+     */
+    @Transactional(readOnly = true)
+    public IncidentPageResponse searchIncidents(Incident.IncidentStatus status, Long roomId, String floor,
+                                                Long reportedBy, Instant from, Instant to, Long cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+
+        // Se pide un registro extra para saber si hay otra página sin hacer un count
+        List<IncidentResponse> rows = incidentRepository.search(
+                cursor, status, roomId, floor, reportedBy, from, to, PageRequest.ofSize(pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        if (rows.isEmpty()) {
+            return new IncidentPageResponse(List.of(), null, false);
+        }
+
+        List<IncidentResponse> items = withPhotoUrls(rows);
+        Long nextCursor = hasMore ? items.get(items.size() - 1).id() : null;
+        return new IncidentPageResponse(items, nextCursor, hasMore);
     }
 
     @Transactional(readOnly = true)
     public IncidentResponse getIncidentById(Long id) {
-        Incident incident = incidentRepository.findById(id)
+        IncidentResponse incident = incidentRepository.findResponseById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Incidencia no encontrada"));
-        return IncidentResponse.fromEntity(incident);
+        return withPhotoUrls(List.of(incident)).get(0);
     }
 
     @Transactional(readOnly = true)
     public List<IncidentResponse> getIncidentsByRoom(Long roomId) {
-        return incidentRepository.findByRoomId(roomId)
-                .stream()
-                .map(IncidentResponse::fromEntity)
-                .toList();
+        return withPhotoUrls(incidentRepository.findResponsesByRoomId(roomId));
     }
 
     @Transactional(readOnly = true)
     public List<IncidentResponse> getIncidentsByStatus(Incident.IncidentStatus status) {
-        return incidentRepository.findByStatus(status)
-                .stream()
-                .map(IncidentResponse::fromEntity)
-                .toList();
+        return withPhotoUrls(incidentRepository.findResponsesByStatus(status));
     }
 
     @Transactional(readOnly = true)
     public List<IncidentResponse> getPendingSyncIncidents() {
-        return incidentRepository.findByIsSyncedFalse()
+        return withPhotoUrls(incidentRepository.findResponsesByIsSyncedFalse());
+    }
+
+    /**
+     * Completa las proyecciones con sus fotos usando una sola consulta IN
+     */
+    private List<IncidentResponse> withPhotoUrls(List<IncidentResponse> rows) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        Map<Long, List<String>> photosByIncident = incidentPhotoRepository
+                .findPhotoUrlsByIncidentIds(rows.stream().map(IncidentResponse::id).toList())
                 .stream()
-                .map(IncidentResponse::fromEntity)
+                .collect(Collectors.groupingBy(
+                        IncidentPhotoRepository.PhotoUrl::getIncidentId,
+                        Collectors.mapping(IncidentPhotoRepository.PhotoUrl::getPhotoUrl, Collectors.toList())));
+
+        return rows.stream()
+                .map(row -> row.withPhotoUrls(photosByIncident.getOrDefault(row.id(), List.of())))
                 .toList();
     }
 }
@@ -0,0 +1,279 @@
+package utez.edu.mx.backend.hotel.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import utez.edu.mx.backend.User.model.User;
+import utez.edu.mx.backend.hotel.dto.OfflineCleaningItem;
+import utez.edu.mx.backend.hotel.dto.OfflineIncidentItem;
+import utez.edu.mx.backend.hotel.dto.OfflineSyncRequest;
+import utez.edu.mx.backend.hotel.dto.OfflineSyncResponse;
+import utez.edu.mx.backend.hotel.dto.OfflineSyncResponse.ItemResult;
+import utez.edu.mx.backend.hotel.model.Cleaning;
+import utez.edu.mx.backend.hotel.model.Room;
+import utez.edu.mx.backend.hotel.repository.CleaningRepository;
+import utez.edu.mx.backend.hotel.repository.IncidentRepository;
+import utez.edu.mx.backend.hotel.repository.OfflineSyncBatchRepository;
+import utez.edu.mx.backend.hotel.repository.RoomRepository;
+import utez.edu.mx.backend.hotel.scheduler.CleaningDeadlineScheduler;
+import utez.edu.mx.backend.notification.dto.NotificationRecipient;
+import utez.edu.mx.backend.notification.model.Notification;
+import utez.edu.mx.backend.notification.service.AdminRecipientCache;
+import utez.edu.mx.backend.notification.service.NotificationService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Sincronización en lote de limpiezas e incidencias capturadas sin conexión.
+ * Es idempotente por (usuario, clientId): los reintentos devuelven DUPLICATE con el id ya asignado.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OfflineSyncService {
+    private final RoomRepository roomRepository;
+    private final CleaningRepository cleaningRepository;
+    private final IncidentRepository incidentRepository;
+    private final OfflineSyncBatchRepository offlineSyncBatchRepository;
+    private final FileStorageService fileStorageService;
+    private final CleaningDeadlineScheduler cleaningDeadlineScheduler;
+    private final RoomEventService roomEventService;
+    private final RoomChangeTracker roomChangeTracker;
+    private final CollectionVersionService collectionVersionService;
+    private final AdminRecipientCache adminRecipientCache;
+    private final NotificationService notificationService;
+
+    // Cambio de estado de habitación derivado de un registro offline
+    private record RoomTransition(Long roomId, Instant at, Room.RoomStatus status) {}
+
+    // Registros que se insertan y posición de cada uno en la petición
+    private record Plan<T>(ItemResult[] results, List<T> toInsert, List<Integer> positions, Map<Integer, Integer> duplicateOf) {}
+
+    @Transactional
+    public OfflineSyncResponse sync(OfflineSyncRequest request) {
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        List<OfflineCleaningItem> cleanings = request.cleanings() != null ? request.cleanings() : List.of();
+        List<OfflineIncidentItem> incidents = request.incidents() != null ? request.incidents() : List.of();
+        log.info("Sincronización offline de {}: {} limpiezas, {} incidencias",
+                user.getEmail(), cleanings.size(), incidents.size());
+        Instant now = Instant.now();
+
+        // Los blobs se bloquean primero, en el mismo orden que una carga de fotos (blob, contador, habitación)
+        Set<String> reusableBlobs = fileStorageService.lockExistingBlobs(incidents.stream()
+                .filter(item -> item.photoUrls() != null)
+                .flatMap(item -> item.photoUrls().stream())
+                .toList());
+
+        // Una sola consulta IN para todas las habitaciones referenciadas, bloqueadas hasta el commit
+        // para comparar sus cambios de estado sin que otra escritura se cuele en medio
+        Set<Long> roomIds = Stream.concat(
+                cleanings.stream().map(OfflineCleaningItem::roomId),
+                incidents.stream().map(OfflineIncidentItem::roomId)
+        ).collect(Collectors.toSet());
+        Long version = null;
+        Map<Long, Room> rooms = Map.of();
+        if (!roomIds.isEmpty()) {
+            version = roomChangeTracker.nextVersion();
+            rooms = roomRepository.lockAllById(roomIds).stream()
+                    .collect(Collectors.toMap(Room::getId, Function.identity()));
+        }
+
+        List<RoomTransition> transitions = new ArrayList<>();
+
+        // Limpiezas
+        Map<String, Long> existingCleanings = existing(cleanings, OfflineCleaningItem::clientId,
+                ids -> cleaningRepository.findIdsByClientIds(user.getId(), ids).stream()
+                        .collect(Collectors.toMap(CleaningRepository.SyncedId::getClientId, CleaningRepository.SyncedId::getId)));
+        Plan<OfflineCleaningItem> cleaningPlan = plan(cleanings, OfflineCleaningItem::clientId,
+                OfflineCleaningItem::roomId, item -> null, existingCleanings, rooms);
+        List<Long> cleaningIds = offlineSyncBatchRepository.insertCleanings(user.getId(),
+                cleaningPlan.toInsert().stream()
+                        .map(item -> new OfflineSyncBatchRepository.NewCleaning(item.clientId(), item.roomId(),
+                                item.cleaningDatetime(),
+                                item.source() != null ? item.source() : Cleaning.CleaningSource.SCAN))
+                        .toList(),
+                now);
+        complete(cleaningPlan, cleaningIds, OfflineCleaningItem::clientId);
+        cleaningPlan.toInsert().forEach(item ->
+                transitions.add(new RoomTransition(item.roomId(), item.cleaningDatetime(), Room.RoomStatus.LIMPIA)));
+
+        // Incidencias
+        Map<String, Long> existingIncidents = existing(incidents, OfflineIncidentItem::clientId,
+                ids -> incidentRepository.findIdsByClientIds(user.getId(), ids).stream()
+                        .collect(Collectors.toMap(IncidentRepository.SyncedId::getClientId, IncidentRepository.SyncedId::getId)));
+        Plan<OfflineIncidentItem> incidentPlan = plan(incidents, OfflineIncidentItem::clientId,
+                OfflineIncidentItem::roomId, item -> photoRejection(item, reusableBlobs), existingIncidents, rooms);
+        List<Long> incidentIds = offlineSyncBatchRepository.insertIncidents(user.getId(),
+                incidentPlan.toInsert().stream()
+                        .map(item -> new OfflineSyncBatchRepository.NewIncident(item.clientId(), item.roomId(),
+                                item.title(), item.description(), item.reportedAt()))
+                        .toList(),
+                now);
+        complete(incidentPlan, incidentIds, OfflineIncidentItem::clientId);
+
+        List<OfflineSyncBatchRepository.NewPhoto> photos = new ArrayList<>();
+        for (int i = 0; i < incidentIds.size(); i++) {
+            OfflineIncidentItem item = incidentPlan.toInsert().get(i);
+            transitions.add(new RoomTransition(item.roomId(), item.reportedAt(), Room.RoomStatus.BLOQUEADA_INCIDENCIA));
+            if (item.photoUrls() != null) {
+                for (String photoUrl : item.photoUrls()) {
+                    photos.add(new OfflineSyncBatchRepository.NewPhoto(incidentIds.get(i),
+                            fileStorageService.currentUrl(photoUrl)));
+                }
+            }
+        }
+        offlineSyncBatchRepository.insertPhotos(photos, now);
+        fileStorageService.retainFiles(photos.stream().map(OfflineSyncBatchRepository.NewPhoto::photoUrl).toList());
+        if (!incidentIds.isEmpty()) {
+            collectionVersionService.changed(CollectionVersionService.Tracked.INCIDENTS);
+        }
+
+        applyTransitions(transitions, rooms, version);
+        notifyAdmins(incidentPlan.toInsert(), rooms);
+
+        log.info("Sincronización offline de {} completada: {} limpiezas y {} incidencias nuevas",
+                user.getEmail(), cleaningIds.size(), incidentIds.size());
+        return new OfflineSyncResponse(Arrays.asList(cleaningPlan.results()), Arrays.asList(incidentPlan.results()));
+    }
+
+    private <T> Map<String, Long> existing(List<T> items, Function<T, String> clientId,
+                                           Function<Set<String>, Map<String, Long>> lookup) {
+        if (items.isEmpty()) {
+            return Map.of();
+        }
+        return lookup.apply(items.stream().map(clientId).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Las fotos de una incidencia offline deben ser blobs ya subidos (POST /incidents con archivos);
+     * devuelve el motivo de rechazo o null si todas son válidas
+     */
+    private String photoRejection(OfflineIncidentItem item, Set<String> reusableBlobs) {
+        if (item.photoUrls() == null) {
+            return null;
+        }
+        return item.photoUrls().stream().allMatch(url -> FileStorageService.isLockedBlob(url, reusableBlobs))
+                ? null
+                : "Foto no encontrada: solo se aceptan fotos ya subidas al servidor";
+    }
+
+    /**
+     * Clasifica cada registro: duplicado en base de datos, duplicado dentro del lote,
+     * rechazado (habitación inexistente o el motivo que indique rejection) o pendiente de insertar
+     */
+    private <T> Plan<T> plan(List<T> items, Function<T, String> clientId, Function<T, Long> roomId,
+                             Function<T, String> rejection, Map<String, Long> existing, Map<Long, Room> rooms) {
+        ItemResult[] results = new ItemResult[items.size()];
+        List<T> toInsert = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        Map<Integer, Integer> duplicateOf = new HashMap<>();
+        Map<String, Integer> firstPosition = new HashMap<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            String id = clientId.apply(item);
+            Long serverId = existing.get(id);
+            Integer first = firstPosition.putIfAbsent(id, i);
+            String reason;
+            if (serverId != null) {
+                results[i] = ItemResult.duplicate(id, serverId);
+            } else if (first != null) {
+                duplicateOf.put(i, first);
+            } else if (!rooms.containsKey(roomId.apply(item))) {
+                results[i] = ItemResult.rejected(id, "Habitación no encontrada");
+            } else if ((reason = rejection.apply(item)) != null) {
+                results[i] = ItemResult.rejected(id, reason);
+            } else {
+                toInsert.add(item);
+                positions.add(i);
+            }
+        }
+        return new Plan<>(results, toInsert, positions, duplicateOf);
+    }
+
+    private <T> void complete(Plan<T> plan, List<Long> insertedIds, Function<T, String> clientId) {
+        for (int i = 0; i < insertedIds.size(); i++) {
+            plan.results()[plan.positions().get(i)] = ItemResult.created(clientId.apply(plan.toInsert().get(i)), insertedIds.get(i));
+        }
+        plan.duplicateOf().forEach((position, first) -> {
+            ItemResult original = plan.results()[first];
+            plan.results()[position] = original.status() == OfflineSyncResponse.ItemStatus.REJECTED
+                    ? original
+                    : ItemResult.duplicate(original.clientId(), original.serverId());
+        });
+    }
+
+    /**
+     * Aplica los cambios de estado en orden cronológico; un registro offline nunca pisa
+     * un cambio más reciente hecho en el servidor. Las habitaciones ya están bloqueadas.
+     */
+    private void applyTransitions(List<RoomTransition> transitions, Map<Long, Room> rooms, Long version) {
+        Set<Room> changed = new LinkedHashSet<>();
+        transitions.stream()
+                .sorted(Comparator.comparing(RoomTransition::at))
+                .forEach(transition -> {
+                    Room room = rooms.get(transition.roomId());
+                    if (room.getLastStatusChange() == null || transition.at().isAfter(room.getLastStatusChange())) {
+                        room.setCurrentStatus(transition.status());
+                        room.setLastStatusChange(transition.at());
+                        changed.add(room);
+                    }
+                });
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        for (Room room : changed) {
+            room.setChangeVersion(version);
+            roomEventService.publish(room);
+            if (room.getCurrentStatus() == Room.RoomStatus.LIMPIA) {
+                cleaningDeadlineScheduler.schedule(room.getId(), room.getScheduledCleaningTime());
+            }
+        }
+        roomRepository.saveAll(changed);
+        log.info("Sincronización offline: {} habitaciones actualizadas", changed.size());
+    }
+
+    private void notifyAdmins(List<OfflineIncidentItem> created, Map<Long, Room> rooms) {
+        if (created.isEmpty()) {
+            return;
+        }
+        List<NotificationRecipient> admins = adminRecipientCache.getAdmins();
+        if (admins.isEmpty()) {
+            return;
+        }
+
+        String notificationTitle;
+        String notificationBody;
+        if (created.size() == 1) {
+            OfflineIncidentItem item = created.get(0);
+            Room room = rooms.get(item.roomId());
+            notificationTitle = "Nueva incidencia reportada";
+            notificationBody = String.format("Habitación %s - Piso %s: %s",
+                    room.getRoomNumber(), room.getFloor(), item.title());
+        } else {
+            notificationTitle = "Nuevas incidencias reportadas";
+            notificationBody = String.format("Se sincronizaron %d incidencias en las habitaciones: %s",
+                    created.size(),
+                    created.stream()
+                            .map(item -> rooms.get(item.roomId()).getRoomNumber())
+                            .distinct()
+                            .collect(Collectors.joining(", ")));
+        }
+        notificationService.createAndSendNotificationToRecipients(
+                admins, notificationTitle, notificationBody, Notification.NotificationType.INCIDENT);
+    }
+}
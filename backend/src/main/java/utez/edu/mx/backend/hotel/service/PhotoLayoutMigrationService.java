@@ -0,0 +1,139 @@
+package utez.edu.mx.backend.hotel.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import utez.edu.mx.backend.hotel.dto.PhotoLayoutMigrationResponse;
+import utez.edu.mx.backend.hotel.repository.IncidentPhotoRepository;
+import utez.edu.mx.backend.hotel.repository.PhotoBlobRepository;
+import utez.edu.mx.backend.hotel.repository.PhotoLayoutBatchRepository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Migra las fotos guardadas en carpetas planas (HTL-Piso-Habitacion/archivo, blobs/archivo)
+ * a la estructura por subcarpetas de hash. Recorre incident_photos por id en lotes; cada lote bloquea
+ * sus filas de incident_photos y photo_blobs, mueve los archivos y reescribe las URL en una sola
+ * transacción, con el borrado de archivos en pausa. Así una carga o una baja concurrente de la misma
+ * foto espera al lote en lugar de ver el archivo movido con la URL anterior. Si se interrumpe basta
+ * con volver a ejecutarla; mientras tanto las URL anteriores se siguen sirviendo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PhotoLayoutMigrationService {
+    private final IncidentPhotoRepository incidentPhotoRepository;
+    private final PhotoBlobRepository photoBlobRepository;
+    private final PhotoLayoutBatchRepository photoLayoutBatchRepository;
+    private final FileStorageService fileStorageService;
+    private final FileReclamationService fileReclamationService;
+    private final CollectionVersionService collectionVersionService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${hotel.incidents.photos.layout-migration.batch-size:500}")
+    private int batchSize;
+
+    // Avance acumulado de la migración
+    private static final class Progress {
+        private int scanned;
+        private int migrated;
+        private int alreadySharded;
+        private int missing;
+        private long afterId;
+    }
+
+    public synchronized PhotoLayoutMigrationResponse migrate() {
+        log.info("Iniciando migración de fotos a la estructura por subcarpetas (lotes de {})", batchSize);
+        Progress progress = new Progress();
+
+        while (Boolean.TRUE.equals(fileReclamationService.withReclamationPaused(
+                () -> transactionTemplate.execute(status -> migrateBatch(progress))))) {
+            log.info("Migración de fotos: {} revisadas, {} migradas hasta el id {}",
+                    progress.scanned, progress.migrated, progress.afterId);
+        }
+
+        log.info("Migración de fotos terminada: {} revisadas, {} migradas, {} ya migradas, {} sin archivo",
+                progress.scanned, progress.migrated, progress.alreadySharded, progress.missing);
+        return new PhotoLayoutMigrationResponse(progress.scanned, progress.migrated,
+                progress.alreadySharded, progress.missing);
+    }
+
+    /**
+     * Migra el siguiente lote dentro de la transacción actual; devuelve false si ya no quedan fotos
+     */
+    private boolean migrateBatch(Progress progress) {
+        List<IncidentPhotoRepository.PhotoRef> batch =
+                incidentPhotoRepository.lockPhotoRefsAfter(progress.afterId, batchSize);
+        if (batch.isEmpty()) {
+            return false;
+        }
+        progress.afterId = batch.get(batch.size() - 1).getId();
+        progress.scanned += batch.size();
+
+        // Las cargas y bajas de estos blobs esperan a que el lote se confirme
+        List<String> blobHashes = batch.stream()
+                .map(IncidentPhotoRepository.PhotoRef::getPhotoUrl)
+                .filter(FileStorageService::isBlob)
+                .map(FileStorageService::blobHash)
+                .distinct()
+                .toList();
+        if (!blobHashes.isEmpty()) {
+            photoBlobRepository.lockByHashes(blobHashes);
+        }
+
+        // Un blob puede aparecer en varias fotos: se mueve una sola vez por lote
+        Map<String, String> moved = new HashMap<>();
+        Map<String, String> blobUrls = new LinkedHashMap<>();
+        List<PhotoLayoutBatchRepository.PhotoUrlUpdate> photoUpdates = new ArrayList<>();
+
+        for (IncidentPhotoRepository.PhotoRef photo : batch) {
+            String photoUrl = photo.getPhotoUrl();
+            if (!FileStorageService.isFlat(photoUrl)) {
+                // Ya migrada, o con un nombre que no puede repartirse en subcarpetas
+                progress.alreadySharded++;
+                continue;
+            }
+            String newUrl = moved.containsKey(photoUrl) ? moved.get(photoUrl) : move(photoUrl);
+            moved.put(photoUrl, newUrl);
+            if (newUrl == null) {
+                progress.missing++;
+                continue;
+            }
+            photoUpdates.add(new PhotoLayoutBatchRepository.PhotoUrlUpdate(photo.getId(), newUrl));
+            if (FileStorageService.isBlob(photoUrl)) {
+                blobUrls.put(FileStorageService.blobHash(newUrl), newUrl);
+            }
+            progress.migrated++;
+        }
+
+        if (!photoUpdates.isEmpty()) {
+            photoLayoutBatchRepository.updatePhotoUrls(photoUpdates);
+            photoLayoutBatchRepository.updateBlobUrls(blobUrls.entrySet().stream()
+                    .map(entry -> new PhotoLayoutBatchRepository.BlobUrlUpdate(entry.getKey(), entry.getValue()))
+                    .toList());
+            // Las respuestas de incidencias incluyen las URL de sus fotos
+            collectionVersionService.changed(CollectionVersionService.Tracked.INCIDENTS);
+        }
+        return true;
+    }
+
+    private String move(String photoUrl) {
+        try {
+            String newUrl = fileStorageService.moveToShardedLayout(photoUrl);
+            if (newUrl == null) {
+                log.warn("Archivo de foto no encontrado, se conserva su URL: {}", photoUrl);
+            }
+            return newUrl;
+        } catch (IOException e) {
+            log.error("Error al mover la foto {}, se conserva su URL", photoUrl, e);
+            return null;
+        }
+    }
+}
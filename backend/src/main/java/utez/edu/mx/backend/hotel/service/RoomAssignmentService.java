@@ -6,53 +6,54 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import utez.edu.mx.backend.User.model.User;
 import utez.edu.mx.backend.User.model.UserRepository;
+import utez.edu.mx.backend.hotel.dto.BulkRoomAssignmentRequest;
 import utez.edu.mx.backend.hotel.dto.RoomAssignmentRequest;
 import utez.edu.mx.backend.hotel.dto.RoomAssignmentResponse;
 import utez.edu.mx.backend.hotel.model.Room;
 import utez.edu.mx.backend.hotel.model.RoomAssignment;
+import utez.edu.mx.backend.hotel.repository.RoomAssignmentBatchRepository;
 import utez.edu.mx.backend.hotel.repository.RoomAssignmentRepository;
 import utez.edu.mx.backend.hotel.repository.RoomRepository;
 import utez.edu.mx.backend.notification.model.Notification;
 import utez.edu.mx.backend.notification.service.NotificationService;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class RoomAssignmentService {
     private final RoomAssignmentRepository roomAssignmentRepository;
+    private final RoomAssignmentBatchRepository roomAssignmentBatchRepository;
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final CollectionVersionService collectionVersionService;
 
     @Transactional(readOnly = true)
     public List<RoomAssignmentResponse> getAllActiveAssignments() {
         log.info("Obteniendo todas las asignaciones activas.");
-        return roomAssignmentRepository.findByActiveTrue()
-                .stream()
-                .filter(assignment -> assignment.getRoom().getCurrentStatus() != Room.RoomStatus.LIMPIA)
-                .map(RoomAssignmentResponse::fromEntity)
-                .toList();
+        return roomAssignmentRepository.findActiveResponsesExcludingRoomStatus(Room.RoomStatus.LIMPIA);
     }
 
     @Transactional(readOnly = true)
     public List<RoomAssignmentResponse> getAssignmentsByUserId(Long userId) {
         log.info("Obteniendo asignaciones activas para el usuario ID: {}", userId);
-        return roomAssignmentRepository.findByUserIdAndActiveTrue(userId)
-                .stream()
-                .filter(assignment -> assignment.getRoom().getCurrentStatus() != Room.RoomStatus.LIMPIA)
-                .map(RoomAssignmentResponse::fromEntity)
-                .toList();
+        return roomAssignmentRepository.findActiveResponsesByUserIdExcludingRoomStatus(userId, Room.RoomStatus.LIMPIA);
     }
 
     @Transactional(readOnly = true)
     public List<RoomAssignmentResponse> getAssignmentsByRoomId(Long roomId) {
         log.info("Obteniendo asignaciones activas para la habitación ID: {}", roomId);
-        return roomAssignmentRepository.findByRoomIdAndActiveTrue(roomId)
-                .stream()
-                .map(RoomAssignmentResponse::fromEntity)
-                .toList();
+        return roomAssignmentRepository.findActiveResponsesByRoomId(roomId);
     }
 
     @Transactional
@@ -100,6 +101,68 @@ public class RoomAssignmentService {
         return RoomAssignmentResponse.fromEntity(assignment);
     }
 
+    /**
+     * Crea varias asignaciones en una sola petición: valida habitaciones y usuarios con dos consultas IN,
+     * inserta en lote y envía una sola notificación por camarera con todas sus habitaciones
+     */
+    @Transactional
+    public List<RoomAssignmentResponse> createAssignments(BulkRoomAssignmentRequest request) {
+        // Pares únicos conservando el orden de la petición
+        Set<RoomAssignmentBatchRepository.NewAssignment> pairs = request.assignments().stream()
+                .map(a -> new RoomAssignmentBatchRepository.NewAssignment(a.roomId(), a.userId()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        log.info("Iniciando creación masiva de {} asignaciones.", pairs.size());
+
+        Set<Long> roomIds = pairs.stream().map(RoomAssignmentBatchRepository.NewAssignment::roomId).collect(Collectors.toSet());
+        Set<Long> userIds = pairs.stream().map(RoomAssignmentBatchRepository.NewAssignment::userId).collect(Collectors.toSet());
+        Map<Long, Room> rooms = roomRepository.findAllById(roomIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        for (RoomAssignmentBatchRepository.NewAssignment pair : pairs) {
+            Room room = rooms.get(pair.roomId());
+            if (room == null) {
+                log.error("Error al crear asignaciones: Habitación no encontrada con ID: {}", pair.roomId());
+                throw new RuntimeException("Habitación no encontrada: " + pair.roomId());
+            }
+            if (room.getCurrentStatus() == Room.RoomStatus.LIMPIA) {
+                log.warn("Intento de asignar una tarea a una habitación que ya está limpia. Habitación ID: {}", pair.roomId());
+                throw new RuntimeException("No se puede asignar una tarea a la habitación " + room.getRoomNumber() + " porque ya está limpia");
+            }
+            if (!users.containsKey(pair.userId())) {
+                log.error("Error al crear asignaciones: Usuario no encontrado con ID: {}", pair.userId());
+                throw new RuntimeException("Usuario no encontrado: " + pair.userId());
+            }
+        }
+
+        List<Long> ids = roomAssignmentBatchRepository.insertActive(List.copyOf(pairs), Instant.now());
+        collectionVersionService.changed(CollectionVersionService.Tracked.ASSIGNMENTS);
+        log.info("{} asignaciones creadas en lote.", ids.size());
+
+        // Una notificación por camarera con todas sus habitaciones nuevas
+        Map<Long, List<Room>> roomsByUser = new LinkedHashMap<>();
+        for (RoomAssignmentBatchRepository.NewAssignment pair : pairs) {
+            roomsByUser.computeIfAbsent(pair.userId(), k -> new ArrayList<>()).add(rooms.get(pair.roomId()));
+        }
+        roomsByUser.forEach((userId, assignedRooms) -> {
+            User user = users.get(userId);
+            String notificationBody = assignedRooms.size() == 1
+                    ? String.format("Se te ha asignado la habitación %s - Piso %s",
+                    assignedRooms.get(0).getRoomNumber(), assignedRooms.get(0).getFloor())
+                    : String.format("Se te han asignado %d habitaciones: %s", assignedRooms.size(),
+                    assignedRooms.stream().map(Room::getRoomNumber).collect(Collectors.joining(", ")));
+            notificationService.createAndSendNotification(
+                    user,
+                    assignedRooms.size() == 1 ? "Nueva asignación" : "Nuevas asignaciones",
+                    notificationBody,
+                    Notification.NotificationType.ASSIGNMENT
+            );
+        });
+
+        return roomAssignmentRepository.findResponsesByIds(ids);
+    }
+
     @Transactional
     public void deleteAssignment(Long id) {
         log.info("Iniciando desactivación de la asignación ID: {}", id);
@@ -0,0 +1,117 @@
+package utez.edu.mx.backend.hotel.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import utez.edu.mx.backend.hotel.model.ChangeCounter;
+import utez.edu.mx.backend.hotel.model.RoomTombstone;
+import utez.edu.mx.backend.hotel.repository.ChangeCounterRepository;
+import utez.edu.mx.backend.hotel.repository.RoomTombstoneRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Asigna la versión de cambio de habitaciones. Todas las escrituras de una misma transacción
+ * comparten una versión; el contador se incrementa una sola vez y su fila queda bloqueada hasta
+ * el commit, por lo que un cliente nunca ve una versión mayor antes que una menor.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RoomChangeTracker {
+
+    static final String ROOM_VERSION = "rooms";
+    // Versión más alta de los borrados ya purgados: clientes por debajo necesitan una sincronización completa
+    static final String ROOM_TOMBSTONES_PURGED = "room_tombstones_purged";
+
+    // Clave del recurso de transacción que guarda la versión ya asignada
+    private static final Object TRANSACTION_VERSION_KEY = new Object();
+
+    private final ChangeCounterRepository counterRepository;
+    private final RoomTombstoneRepository tombstoneRepository;
+    private final CollectionVersionService collectionVersionService;
+
+    @Value("${hotel.rooms.changes.tombstone-retention-days:30}")
+    private long tombstoneRetentionDays;
+
+    /**
+     * Versión de la transacción actual; la primera llamada incrementa el contador global
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long nextVersion() {
+        Long version = (Long) TransactionSynchronizationManager.getResource(TRANSACTION_VERSION_KEY);
+        if (version != null) {
+            return version;
+        }
+
+        if (counterRepository.increment(ROOM_VERSION) == 0) {
+            counterRepository.saveAndFlush(ChangeCounter.builder().name(ROOM_VERSION).value(1L).build());
+        }
+        long assigned = counterRepository.findValue(ROOM_VERSION).orElseThrow();
+
+        TransactionSynchronizationManager.bindResource(TRANSACTION_VERSION_KEY, assigned);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_VERSION_KEY);
+            }
+        });
+        return assigned;
+    }
+
+    /**
+     * Última versión confirmada
+     */
+    @Transactional(readOnly = true)
+    public long currentVersion() {
+        return counterRepository.findValue(ROOM_VERSION).orElse(0L);
+    }
+
+    @Transactional(readOnly = true)
+    public long purgedVersion() {
+        return counterRepository.findValue(ROOM_TOMBSTONES_PURGED).orElse(0L);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> deletedRoomIds(long since, long until) {
+        return tombstoneRepository.findDeletedRoomIds(since, until);
+    }
+
+    /**
+     * Registra el borrado de una habitación con la versión de la transacción actual
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeletion(Long roomId) {
+        tombstoneRepository.save(RoomTombstone.builder()
+                .roomId(roomId)
+                .changeVersion(nextVersion())
+                .build());
+    }
+
+    /**
+     * Purga los registros de borrado antiguos y sube la marca de purga
+     */
+    @Transactional
+    @Scheduled(cron = "${hotel.rooms.changes.tombstone-purge-cron:0 30 3 * * *}")
+    public void purgeTombstones() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(tombstoneRetentionDays));
+        tombstoneRepository.findMaxChangeVersionBefore(cutoff).ifPresent(version -> {
+            if (counterRepository.raiseTo(ROOM_TOMBSTONES_PURGED, version) == 0
+                    && counterRepository.findValue(ROOM_TOMBSTONES_PURGED).isEmpty()) {
+                counterRepository.save(ChangeCounter.builder().name(ROOM_TOMBSTONES_PURGED).value(version).build());
+            }
+            int deleted = tombstoneRepository.deleteUpToVersion(version);
+            // La marca de purga forma parte de la respuesta de /sync
+            collectionVersionService.changed(CollectionVersionService.Tracked.ROOMS);
+            log.info("Purgados {} registros de habitaciones eliminadas (hasta la versión {})", deleted, version);
+        });
+    }
+}
@@ -0,0 +1,215 @@
+package utez.edu.mx.backend.hotel.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import utez.edu.mx.backend.hotel.dto.RoomStatusEvent;
+import utez.edu.mx.backend.hotel.model.Room;
+import utez.edu.mx.backend.hotel.repository.RoomRepository;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Publica por SSE los cambios de estado de habitaciones después de cada commit.
+ * Guarda los últimos eventos en un buffer circular para que un cliente reconectado
+ * reciba solo lo que se perdió (Last-Event-ID o ?since=); si el hueco ya no está en
+ * el buffer, se le envía un evento "reset" para que recargue el tablero completo.
+ * Los envíos a los clientes se hacen en un hilo propio para que una conexión lenta no
+ * detenga el commit de quien publica.
+ */
+@Slf4j
+@Service
+public class RoomEventService {
+
+    static final String STATUS_EVENT = "room-status";
+    static final String RESET_EVENT = "reset";
+
+    @Value("${hotel.rooms.events.buffer-size:1000}")
+    private int bufferSize;
+
+    @Value("${hotel.rooms.events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMillis;
+
+    // Todo el estado se protege con el monitor de esta instancia para mantener el orden de los eventos
+    private final Deque<RoomStatusEvent> buffer = new ArrayDeque<>();
+    private final List<SseEmitter> emitters = new ArrayList<>();
+    // Parte de la hora de arranque para que los ids de un arranque anterior no coincidan con los de este
+    private long sequence = System.currentTimeMillis();
+
+    // Un solo hilo conserva el orden de los envíos
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "room-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record Change(Long roomId, String roomNumber, String floor, Room.RoomStatus status, Instant changedAt) {}
+
+    /**
+     * Publica el estado actual de la habitación cuando la transacción se confirme
+     */
+    public void publish(Room room) {
+        Instant changedAt = room.getLastStatusChange() != null ? room.getLastStatusChange() : Instant.now();
+        publishAfterCommit(List.of(new Change(
+                room.getId(), room.getRoomNumber(), room.getFloor(), room.getCurrentStatus(), changedAt)));
+    }
+
+    /**
+     * Publica un cambio masivo (UPDATE en bloque) a partir de las filas afectadas
+     */
+    public void publish(Collection<RoomRepository.RoomSummary> rooms, Room.RoomStatus status, Instant changedAt) {
+        if (rooms.isEmpty()) {
+            return;
+        }
+        publishAfterCommit(rooms.stream()
+                .map(room -> new Change(room.getId(), room.getRoomNumber(), room.getFloor(), status, changedAt))
+                .toList());
+    }
+
+    /**
+     * Registra un cliente y le reenvía los eventos posteriores a lastSequence
+     */
+    public SseEmitter subscribe(Long lastSequence) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitter.onCompletion(() -> remove(emitter));
+        emitter.onTimeout(() -> remove(emitter));
+        emitter.onError(e -> remove(emitter));
+
+        synchronized (this) {
+            try {
+                if (lastSequence != null) {
+                    replay(emitter, lastSequence);
+                }
+                emitters.add(emitter);
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Comentario periódico para que proxies y balanceadores no cierren las conexiones inactivas
+     */
+    @Scheduled(fixedDelayString = "${hotel.rooms.events.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        List<SseEmitter> targets;
+        synchronized (this) {
+            targets = List.copyOf(emitters);
+        }
+        fanOut(targets, () -> SseEmitter.event().comment("keepalive"));
+    }
+
+    private void replay(SseEmitter emitter, long lastSequence) throws IOException {
+        long oldest = buffer.isEmpty() ? sequence + 1 : buffer.peekFirst().sequence();
+        if (lastSequence > sequence || lastSequence < oldest - 1) {
+            // El cliente viene de otro arranque del servidor o perdió más de lo que guarda el buffer
+            emitter.send(SseEmitter.event().name(RESET_EVENT).id(String.valueOf(sequence)).data(sequence));
+            return;
+        }
+        for (RoomStatusEvent event : buffer) {
+            if (event.sequence() > lastSequence) {
+                emitter.send(toSse(event));
+            }
+        }
+    }
+
+    private void publishAfterCommit(List<Change> changes) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcast(changes);
+                }
+            });
+        } else {
+            broadcast(changes);
+        }
+    }
+
+    /**
+     * Numera y guarda los eventos bajo el monitor; el envío a los clientes se hace fuera de él
+     */
+    private void broadcast(List<Change> changes) {
+        List<SseEmitter> targets;
+        List<RoomStatusEvent> events = new ArrayList<>(changes.size());
+        synchronized (this) {
+            for (Change change : changes) {
+                RoomStatusEvent event = new RoomStatusEvent(++sequence, change.roomId(), change.roomNumber(),
+                        change.floor(), change.status(), change.changedAt());
+                buffer.addLast(event);
+                events.add(event);
+            }
+            while (buffer.size() > bufferSize) {
+                buffer.removeFirst();
+            }
+            // Los clientes que se suscriban después ya reciben estos eventos en su replay
+            targets = List.copyOf(emitters);
+        }
+        for (RoomStatusEvent event : events) {
+            // Cada envío necesita su propio builder: build() no es idempotente
+            fanOut(targets, () -> toSse(event));
+        }
+        log.debug("Publicados {} eventos de habitación (secuencia {})", events.size(),
+                events.get(events.size() - 1).sequence());
+    }
+
+    private void fanOut(List<SseEmitter> targets, Supplier<SseEmitter.SseEventBuilder> event) {
+        if (targets.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                for (SseEmitter emitter : targets) {
+                    if (!send(emitter, event)) {
+                        remove(emitter);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Envío de eventos de habitación descartado durante el apagado");
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toSse(RoomStatusEvent event) {
+        return SseEmitter.event()
+                .id(String.valueOf(event.sequence()))
+                .name(STATUS_EVENT)
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private boolean send(SseEmitter emitter, Supplier<SseEmitter.SseEventBuilder> event) {
+        try {
+            emitter.send(event.get());
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Cliente SSE desconectado: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized void remove(SseEmitter emitter) {
+        emitters.remove(emitter);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import utez.edu.mx.backend.hotel.dto.RoomChangesResponse;
 import utez.edu.mx.backend.hotel.dto.RoomRequest;
 import utez.edu.mx.backend.hotel.dto.RoomResponse;
 import utez.edu.mx.backend.hotel.dto.UpdateRoomStatusRequest;
@@ -12,6 +13,7 @@ import utez.edu.mx.backend.hotel.model.Room;
 import utez.edu.mx.backend.hotel.repository.HotelSettingsRepository;
 import utez.edu.mx.backend.hotel.repository.RoomAssignmentRepository;
 import utez.edu.mx.backend.hotel.repository.RoomRepository;
+import utez.edu.mx.backend.hotel.scheduler.CleaningDeadlineScheduler;
 
 import java.time.Instant;
 import java.time.LocalTime;
@@ -24,6 +26,9 @@ public class RoomService {
     private final RoomRepository roomRepository;
     private final RoomAssignmentRepository roomAssignmentRepository;
     private final HotelSettingsRepository hotelSettingsRepository;
+    private final CleaningDeadlineScheduler cleaningDeadlineScheduler;
+    private final RoomEventService roomEventService;
+    private final RoomChangeTracker roomChangeTracker;
 
     @Transactional(readOnly = true)
     public List<RoomResponse> getAllRooms() {
@@ -34,6 +39,32 @@ public class RoomService {
                 .toList();
     }
 
+    /**
+     * Sincronización incremental: habitaciones modificadas y eliminadas después de la versión since.
+     * Sin since, o si la versión ya no se puede reconstruir, devuelve la lista completa.
+     */
+    @Transactional(readOnly = true)
+    public RoomChangesResponse getRoomChanges(Long since) {
+        long version = roomChangeTracker.currentVersion();
+        if (since == null || since <= 0 || since > version || since < roomChangeTracker.purgedVersion()) {
+            log.info("Sincronización completa de habitaciones (since: {}, versión actual: {})", since, version);
+            List<RoomResponse> rooms = roomRepository.findAll()
+                    .stream()
+                    .map(RoomResponse::fromEntity)
+                    .toList();
+            return new RoomChangesResponse(version, true, rooms, List.of());
+        }
+
+        List<RoomResponse> changed = roomRepository
+                .findByChangeVersionGreaterThanAndChangeVersionLessThanEqualOrderByChangeVersionAsc(since, version)
+                .stream()
+                .map(RoomResponse::fromEntity)
+                .toList();
+        List<Long> deleted = roomChangeTracker.deletedRoomIds(since, version);
+        log.debug("Cambios de habitaciones desde {}: {} modificadas, {} eliminadas", since, changed.size(), deleted.size());
+        return new RoomChangesResponse(version, false, changed, deleted);
+    }
+
     @Transactional(readOnly = true)
     public RoomResponse getRoomById(Long id) {
         log.info("Obteniendo habitación por ID: {}", id);
@@ -66,9 +97,11 @@ public class RoomService {
                 .notes(request.notes())
                 .currentStatus(Room.RoomStatus.LIMPIA)
                 .lastStatusChange(Instant.now())
+                .changeVersion(roomChangeTracker.nextVersion())
                 .build();
 
         Room savedRoom = roomRepository.save(room);
+        cleaningDeadlineScheduler.schedule(savedRoom.getId(), savedRoom.getScheduledCleaningTime());
         log.info("Habitación creada exitosamente con ID: {}", savedRoom.getId());
         return RoomResponse.fromEntity(savedRoom);
     }
@@ -87,8 +120,10 @@ public class RoomService {
         room.setBarcodeValue(request.barcodeValue());
         room.setScheduledCleaningTime(request.scheduledCleaningTime());
         room.setNotes(request.notes());
+        room.setChangeVersion(roomChangeTracker.nextVersion());
 
         Room updatedRoom = roomRepository.save(room);
+        cleaningDeadlineScheduler.schedule(id, updatedRoom.getScheduledCleaningTime());
         log.info("Habitación ID: {} actualizada exitosamente.", id);
         return RoomResponse.fromEntity(updatedRoom);
     }
@@ -101,6 +136,8 @@ public class RoomService {
             throw new IllegalArgumentException("Habitación no encontrada");
         }
         roomRepository.deleteById(id);
+        roomChangeTracker.recordDeletion(id);
+        cleaningDeadlineScheduler.unschedule(id);
         log.info("Habitación ID: {} eliminada exitosamente.", id);
     }
 
@@ -115,8 +152,10 @@ public class RoomService {
 
         room.setCurrentStatus(request.status());
         room.setLastStatusChange(Instant.now());
+        room.setChangeVersion(roomChangeTracker.nextVersion());
 
         Room updatedRoom = roomRepository.save(room);
+        roomEventService.publish(updatedRoom);
         log.info("Estado de la habitación ID: {} actualizado a {}.", id, request.status());
 
         // Si la habitación se marca como LIMPIA, desactivar automáticamente sus asignaciones activas
@@ -2,10 +2,12 @@ package utez.edu.mx.backend.notification.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import utez.edu.mx.backend.User.model.User;
 import utez.edu.mx.backend.notification.dto.NotificationDTO;
+import utez.edu.mx.backend.notification.service.FcmTokenHealthService;
 import utez.edu.mx.backend.notification.service.NotificationService;
 
 import java.util.HashMap;
@@ -18,6 +20,7 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final FcmTokenHealthService tokenHealthService;
 
     /**
      * Obtiene todas las notificaciones del usuario autenticado
@@ -86,4 +89,13 @@ public class NotificationController {
         response.put("message", "Notificación eliminada correctamente");
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Contadores de tokens FCM muertos detectados y podados
+     */
+    @GetMapping("/token-health")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Long>> getTokenHealth() {
+        return ResponseEntity.ok(tokenHealthService.getStats());
+    }
 }
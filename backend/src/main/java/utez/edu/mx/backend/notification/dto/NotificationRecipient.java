@@ -0,0 +1,11 @@
+package utez.edu.mx.backend.notification.dto;
+
+/**
+ * Datos mínimos de un destinatario de notificaciones (sin cargar la entidad User)
+ */
+public record NotificationRecipient(
+        Long userId,
+        String email,
+        String fcmToken
+) {
+}
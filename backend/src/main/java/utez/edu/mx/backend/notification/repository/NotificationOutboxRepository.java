@@ -0,0 +1,35 @@
+package utez.edu.mx.backend.notification.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import utez.edu.mx.backend.notification.model.NotificationOutbox;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+    /**
+     * Siguiente lote de push vencidos, bloqueado hasta el fin de la transacción. El timeout -2 equivale a
+     * SKIP LOCKED: las filas que otro despachador está reclamando se saltan en lugar de esperarlas.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<NotificationOutbox> findTop500ByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+            NotificationOutbox.OutboxStatus status, Instant now);
+
+    @Modifying
+    @Query("update NotificationOutbox o set o.status = :failedStatus, o.lastError = 'TOKEN_PRUNED' " +
+            "where o.status = :pendingStatus and o.fcmToken in :tokens")
+    int discardPendingForTokens(@Param("tokens") Collection<String> tokens,
+                                @Param("pendingStatus") NotificationOutbox.OutboxStatus pendingStatus,
+                                @Param("failedStatus") NotificationOutbox.OutboxStatus failedStatus);
+}
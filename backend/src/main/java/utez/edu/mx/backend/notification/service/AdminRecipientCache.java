@@ -0,0 +1,81 @@
+package utez.edu.mx.backend.notification.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import utez.edu.mx.backend.User.model.User;
+import utez.edu.mx.backend.User.model.UserRepository;
+import utez.edu.mx.backend.notification.dto.NotificationRecipient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché de los administradores que reciben las notificaciones de incidencias (id + token FCM).
+ * Se carga una vez con una consulta por rol y se mantiene al día con los cambios de usuarios.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdminRecipientCache {
+
+    private final UserRepository userRepository;
+
+    private volatile Map<Long, NotificationRecipient> admins;
+
+    public List<NotificationRecipient> getAdmins() {
+        return List.copyOf(load().values());
+    }
+
+    /**
+     * Refleja el alta o modificación de un usuario (registro, estado, token FCM)
+     */
+    public void upsert(User user) {
+        Map<Long, NotificationRecipient> current = admins;
+        if (current == null) {
+            return;
+        }
+        if (user.getRole() == User.Role.ADMIN) {
+            current.put(user.getId(), new NotificationRecipient(user.getId(), user.getEmail(), user.getFcmToken()));
+        } else {
+            current.remove(user.getId());
+        }
+    }
+
+    /**
+     * Descarta la caché para que se recargue en el siguiente uso (después del commit si hay transacción)
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    admins = null;
+                }
+            });
+        } else {
+            admins = null;
+        }
+    }
+
+    private Map<Long, NotificationRecipient> load() {
+        Map<Long, NotificationRecipient> current = admins;
+        if (current == null) {
+            synchronized (this) {
+                current = admins;
+                if (current == null) {
+                    current = new ConcurrentHashMap<>();
+                    for (NotificationRecipient recipient : userRepository.findRecipientsByRole(User.Role.ADMIN)) {
+                        current.put(recipient.userId(), recipient);
+                    }
+                    admins = current;
+                    log.debug("Caché de administradores cargada con {} destinatarios", current.size());
+                }
+            }
+        }
+        return current;
+    }
+}
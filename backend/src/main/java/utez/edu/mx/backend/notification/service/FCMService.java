@@ -3,128 +3,184 @@ package utez.edu.mx.backend.notification.service;
 import com.google.firebase.messaging.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Service
-public class FCMService {
+@ConditionalOnProperty(name = "notifications.push.sender", havingValue = "fcm", matchIfMissing = true)
+public class FCMService implements PushSender {
 
     private static final Logger logger = LoggerFactory.getLogger(FCMService.class);
 
+    // Límite de FCM para sendEach y sendEachForMulticast
+    private static final int MAX_BATCH_SIZE = 500;
+
     /**
-     * Envía una notificación push a un único dispositivo
+     * Envía un lote de mensajes: los que comparten contenido van en multicast y el resto
+     * en una sola llamada sendEach, siempre en bloques de hasta 500 mensajes
      */
-    public void sendNotification(String fcmToken, String title, String body, Map<String, String> data) {
-        if (fcmToken == null || fcmToken.isEmpty()) {
-            logger.warn("[FCM] No se puede enviar notificación: FCM token es nulo o vacío");
-            return;
+    @Override
+    public List<PushResult> sendBatch(List<PushMessage> messages) {
+        PushResult[] results = new PushResult[messages.size()];
+
+        // Agrupar por contenido idéntico (title, body, data) conservando la posición original
+        Map<List<Object>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            PushMessage message = messages.get(i);
+            List<Object> key = List.of(
+                    Objects.toString(message.title(), ""),
+                    Objects.toString(message.body(), ""),
+                    message.data() != null ? message.data() : Map.of());
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
         }
 
-        try {
-            logger.info("[FCM] Enviando notificación push...");
-            logger.info("[FCM] Token: {}", fcmToken.substring(0, Math.min(20, fcmToken.length())) + "...");
-            logger.info("[FCM] Title: {}", title);
-            logger.info("[FCM] Body: {}", body);
-
-            Message message = Message.builder()
-                    .setToken(fcmToken)
-                    .setNotification(Notification.builder()
-                            .setTitle(title)
-                            .setBody(body)
-                            .build())
-                    .putAllData(data != null ? data : new HashMap<>())
-                    .setAndroidConfig(AndroidConfig.builder()
-                            .setPriority(AndroidConfig.Priority.HIGH)
-                            .setNotification(AndroidNotification.builder()
-                                    .setSound("default")
-                                    .setClickAction("FLUTTER_NOTIFICATION_CLICK")
-                                    .build())
-                            .build())
-                    .setWebpushConfig(WebpushConfig.builder()
-                            .setNotification(WebpushNotification.builder()
-                                    .setIcon("/vite.svg")
-                                    .setBadge("/vite.svg")
-                                    .build())
-                            .build())
-                    .build();
-
-            String response = FirebaseMessaging.getInstance().send(message);
-            logger.info("[FCM] ✓ Notificación enviada exitosamente: {}", response);
+        List<Integer> singles = new ArrayList<>();
+        for (List<Integer> indexes : groups.values()) {
+            if (indexes.size() == 1) {
+                singles.add(indexes.get(0));
+                continue;
+            }
+            PushMessage first = messages.get(indexes.get(0));
+            for (List<Integer> chunk : chunks(indexes)) {
+                List<String> tokens = chunk.stream().map(i -> messages.get(i).token()).toList();
+                List<PushResult> chunkResults = send(tokens, first.title(), first.body(), first.data());
+                for (int j = 0; j < chunk.size(); j++) {
+                    results[chunk.get(j)] = chunkResults.get(j);
+                }
+            }
+        }
 
-        } catch (FirebaseMessagingException e) {
-            logger.error("Error al enviar notificación push", e);
-            if (e.getMessagingErrorCode() == MessagingErrorCode.INVALID_ARGUMENT ||
-                    e.getMessagingErrorCode() == MessagingErrorCode.UNREGISTERED) {
-                logger.warn("Token FCM inválido o no registrado: {}", fcmToken);
+        for (List<Integer> chunk : chunks(singles)) {
+            List<PushMessage> chunkMessages = chunk.stream().map(messages::get).toList();
+            List<PushResult> chunkResults = sendEach(chunkMessages);
+            for (int j = 0; j < chunk.size(); j++) {
+                results[chunk.get(j)] = chunkResults.get(j);
             }
         }
+
+        logger.info("[FCM] Lote de {} mensajes enviado en {} grupos de contenido", messages.size(), groups.size());
+        return Arrays.asList(results);
     }
 
     /**
-     * Envía una notificación a múltiples dispositivos
+     * Envía el mismo mensaje con sendEachForMulticast (máximo 500 tokens) y reporta el resultado de cada token
      */
-    public void sendNotificationToMultiple(List<String> fcmTokens, String title, String body, Map<String, String> data) {
-        if (fcmTokens == null || fcmTokens.isEmpty()) {
-            logger.warn("[FCM] No se puede enviar notificación: lista de tokens vacía");
-            return;
-        }
-
-        // Filtrar tokens nulos o vacíos
-        List<String> validTokens = fcmTokens.stream()
-                .filter(token -> token != null && !token.isEmpty())
-                .toList();
-
-        if (validTokens.isEmpty()) {
-            logger.warn("[FCM] No hay tokens válidos para enviar notificación");
-            return;
-        }
-
+    private List<PushResult> send(List<String> fcmTokens, String title, String body, Map<String, String> data) {
+        List<PushResult> results = new ArrayList<>(fcmTokens.size());
         try {
-            logger.info("[FCM] Enviando notificaciones push a {} destinatarios...", validTokens.size());
-            logger.info("[FCM] Title: {}", title);
-            logger.info("[FCM] Body: {}", body);
-
             MulticastMessage message = MulticastMessage.builder()
-                    .addAllTokens(validTokens)
-                    .setNotification(Notification.builder()
-                            .setTitle(title)
-                            .setBody(body)
-                            .build())
+                    .addAllTokens(fcmTokens)
+                    .setNotification(buildNotification(title, body))
                     .putAllData(data != null ? data : new HashMap<>())
-                    .setAndroidConfig(AndroidConfig.builder()
-                            .setPriority(AndroidConfig.Priority.HIGH)
-                            .setNotification(AndroidNotification.builder()
-                                    .setSound("default")
-                                    .setClickAction("FLUTTER_NOTIFICATION_CLICK")
-                                    .build())
-                            .build())
-                    .setWebpushConfig(WebpushConfig.builder()
-                            .setNotification(WebpushNotification.builder()
-                                    .setIcon("/vite.svg")
-                                    .setBadge("/vite.svg")
-                                    .build())
-                            .build())
+                    .setAndroidConfig(buildAndroidConfig())
+                    .setWebpushConfig(buildWebpushConfig())
                     .build();
 
             BatchResponse response = FirebaseMessaging.getInstance().sendEachForMulticast(message);
             logger.info("[FCM] ✓ Notificaciones enviadas. Exitosas: {}, Fallidas: {}",
                     response.getSuccessCount(), response.getFailureCount());
-
-            if (response.getFailureCount() > 0) {
-                List<SendResponse> responses = response.getResponses();
-                for (int i = 0; i < responses.size(); i++) {
-                    if (!responses.get(i).isSuccessful()) {
-                        logger.error("Error al enviar a token {}: {}",
-                                validTokens.get(i), responses.get(i).getException().getMessage());
-                    }
-                }
+            collectResults(fcmTokens, response, results);
+        } catch (FirebaseMessagingException e) {
+            logger.error("Error al enviar notificaciones múltiples", e);
+            for (String token : fcmTokens) {
+                results.add(toFailure(token, e.getMessagingErrorCode()));
             }
+        }
+        return results;
+    }
 
+    /**
+     * Envía mensajes distintos en una sola llamada sendEach (máximo 500)
+     */
+    private List<PushResult> sendEach(List<PushMessage> pushMessages) {
+        List<String> tokens = pushMessages.stream().map(PushMessage::token).toList();
+        List<PushResult> results = new ArrayList<>(pushMessages.size());
+        try {
+            List<Message> messages = pushMessages.stream()
+                    .map(message -> Message.builder()
+                            .setToken(message.token())
+                            .setNotification(buildNotification(message.title(), message.body()))
+                            .putAllData(message.data() != null ? message.data() : new HashMap<>())
+                            .setAndroidConfig(buildAndroidConfig())
+                            .setWebpushConfig(buildWebpushConfig())
+                            .build())
+                    .toList();
+
+            BatchResponse response = FirebaseMessaging.getInstance().sendEach(messages);
+            logger.info("[FCM] ✓ Mensajes individuales enviados. Exitosos: {}, Fallidos: {}",
+                    response.getSuccessCount(), response.getFailureCount());
+            collectResults(tokens, response, results);
         } catch (FirebaseMessagingException e) {
-            logger.error("Error al enviar notificaciones múltiples", e);
+            logger.error("Error al enviar lote de notificaciones", e);
+            for (String token : tokens) {
+                results.add(toFailure(token, e.getMessagingErrorCode()));
+            }
+        }
+        return results;
+    }
+
+    private void collectResults(List<String> tokens, BatchResponse response, List<PushResult> results) {
+        List<SendResponse> responses = response.getResponses();
+        for (int i = 0; i < responses.size(); i++) {
+            String token = tokens.get(i);
+            if (responses.get(i).isSuccessful()) {
+                results.add(PushResult.ok(token));
+            } else {
+                FirebaseMessagingException exception = responses.get(i).getException();
+                logger.error("Error al enviar a token {}: {}", token, exception.getMessage());
+                results.add(toFailure(token, exception.getMessagingErrorCode()));
+            }
         }
     }
+
+    private List<List<Integer>> chunks(List<Integer> indexes) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int i = 0; i < indexes.size(); i += MAX_BATCH_SIZE) {
+            chunks.add(indexes.subList(i, Math.min(i + MAX_BATCH_SIZE, indexes.size())));
+        }
+        return chunks;
+    }
+
+    private PushResult toFailure(String token, MessagingErrorCode errorCode) {
+        // Sin código, errores internos, cuota o servicio no disponible se pueden reintentar
+        boolean retryable = errorCode == null
+                || errorCode == MessagingErrorCode.INTERNAL
+                || errorCode == MessagingErrorCode.UNAVAILABLE
+                || errorCode == MessagingErrorCode.QUOTA_EXCEEDED;
+        return PushResult.failed(token, errorCode != null ? errorCode.name() : null, retryable);
+    }
+
+    private Notification buildNotification(String title, String body) {
+        return Notification.builder()
+                .setTitle(title)
+                .setBody(body)
+                .build();
+    }
+
+    private AndroidConfig buildAndroidConfig() {
+        return AndroidConfig.builder()
+                .setPriority(AndroidConfig.Priority.HIGH)
+                .setNotification(AndroidNotification.builder()
+                        .setSound("default")
+                        .setClickAction("FLUTTER_NOTIFICATION_CLICK")
+                        .build())
+                .build();
+    }
+
+    private WebpushConfig buildWebpushConfig() {
+        return WebpushConfig.builder()
+                .setNotification(WebpushNotification.builder()
+                        .setIcon("/vite.svg")
+                        .setBadge("/vite.svg")
+                        .build())
+                .build();
+    }
 }
@@ -0,0 +1,121 @@
+package utez.edu.mx.backend.notification.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import utez.edu.mx.backend.User.model.UserRepository;
+import utez.edu.mx.backend.notification.model.NotificationOutbox;
+import utez.edu.mx.backend.notification.repository.NotificationOutboxRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lleva el estado de salud de los tokens FCM a partir de los resultados de envío.
+ * Los tokens muertos se eliminan de los usuarios en bloque para no desperdiciar envíos.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FcmTokenHealthService {
+
+    private final UserRepository userRepository;
+    private final NotificationOutboxRepository outboxRepository;
+    private final AdminRecipientCache adminRecipientCache;
+
+    // Tokens confirmados como muertos, pendientes de limpiar en la base de datos
+    private final Set<String> deadTokens = ConcurrentHashMap.newKeySet();
+    // Tokens en cuarentena: fallos INVALID_ARGUMENT consecutivos
+    private final Map<String, Integer> strikes = new ConcurrentHashMap<>();
+
+    private final AtomicLong deadTokensDetected = new AtomicLong();
+    private final AtomicLong tokensPruned = new AtomicLong();
+    private final AtomicLong pushesDiscarded = new AtomicLong();
+
+    @Value("${notifications.token-health.invalid-argument-strikes:3}")
+    private int maxStrikes;
+
+    /**
+     * Registra el resultado de un envío por token
+     */
+    public void record(PushSender.PushResult result) {
+        if (result.success()) {
+            strikes.remove(result.token());
+            return;
+        }
+        String errorCode = result.errorCode();
+        if ("UNREGISTERED".equals(errorCode) || "SENDER_ID_MISMATCH".equals(errorCode)) {
+            markDead(result.token());
+        } else if ("INVALID_ARGUMENT".equals(errorCode)) {
+            // INVALID_ARGUMENT también puede deberse al mensaje: se poda solo si se repite
+            int count = strikes.merge(result.token(), 1, Integer::sum);
+            if (count >= maxStrikes) {
+                strikes.remove(result.token());
+                markDead(result.token());
+            }
+        }
+    }
+
+    /**
+     * Registra los resultados de un lote; el despachador del outbox lo llama después de cada envío
+     */
+    public void recordAll(List<PushSender.PushResult> results) {
+        results.forEach(this::record);
+    }
+
+    /**
+     * Indica si el token ya se detectó como muerto y aún no se ha limpiado
+     */
+    public boolean isDead(String token) {
+        return deadTokens.contains(token);
+    }
+
+    /**
+     * Limpia en bloque los tokens muertos de los usuarios y descarta sus push pendientes
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${notifications.token-health.flush-interval-ms:30000}")
+    public void pruneDeadTokens() {
+        if (deadTokens.isEmpty()) {
+            return;
+        }
+        List<String> tokens = new ArrayList<>(deadTokens);
+        int cleared = userRepository.clearFcmTokens(tokens);
+        int discarded = outboxRepository.discardPendingForTokens(
+                tokens, NotificationOutbox.OutboxStatus.PENDING, NotificationOutbox.OutboxStatus.FAILED);
+        tokens.forEach(deadTokens::remove);
+        if (cleared > 0) {
+            adminRecipientCache.invalidate();
+        }
+
+        tokensPruned.addAndGet(cleared);
+        pushesDiscarded.addAndGet(discarded);
+        log.info("[FCM] Tokens muertos podados: {} usuarios actualizados, {} push pendientes descartados",
+                cleared, discarded);
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("deadTokensDetected", deadTokensDetected.get());
+        stats.put("tokensPruned", tokensPruned.get());
+        stats.put("pushesDiscarded", pushesDiscarded.get());
+        stats.put("pendingPrune", (long) deadTokens.size());
+        stats.put("quarantined", (long) strikes.size());
+        return stats;
+    }
+
+    private void markDead(String token) {
+        if (deadTokens.add(token)) {
+            deadTokensDetected.incrementAndGet();
+            log.warn("[FCM] Token marcado como muerto: {}...", token.substring(0, Math.min(20, token.length())));
+        }
+    }
+}
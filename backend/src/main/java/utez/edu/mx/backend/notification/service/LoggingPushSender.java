@@ -0,0 +1,26 @@
+package utez.edu.mx.backend.notification.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Sustituto local de FCM: solo registra los envíos y los reporta como exitosos
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "notifications.push.sender", havingValue = "log")
+public class LoggingPushSender implements PushSender {
+
+    @Override
+    public List<PushResult> sendBatch(List<PushMessage> messages) {
+        log.info("[PUSH-LOCAL] Lote de {} mensajes", messages.size());
+        return messages.stream()
+                .peek(message -> log.debug("[PUSH-LOCAL] Title: {} Body: {} Data: {}",
+                        message.title(), message.body(), message.data()))
+                .map(message -> PushResult.ok(message.token()))
+                .toList();
+    }
+}
@@ -0,0 +1,216 @@
+package utez.edu.mx.backend.notification.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import utez.edu.mx.backend.notification.model.NotificationOutbox;
+import utez.edu.mx.backend.notification.repository.NotificationOutboxRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Envía en segundo plano los push pendientes del outbox. Se despierta después de cada commit
+ * que inserta filas y, como respaldo, revisa periódicamente los reintentos vencidos.
+ * Los commits que llegan dentro de una ventana corta se agrupan en un solo lote hacia FCM.
+ * Cada lote se reclama antes de enviarse (SKIP LOCKED y un préstamo sobre next_attempt_at), así que
+ * ni un FCM lento ni varias instancias provocan envíos duplicados.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxDispatcher {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final PushSender pushSender;
+    private final FcmTokenHealthService tokenHealthService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Indica si ya hay un despacho programado o en cola; nunca se encola más de uno
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean(false);
+    // Indica si hay un despacho en curso
+    private final AtomicBoolean dispatching = new AtomicBoolean(false);
+
+    @Value("${notifications.outbox.coalesce-window-ms:250}")
+    private long coalesceWindowMillis;
+
+    @Value("${notifications.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notifications.outbox.backoff-base-ms:2000}")
+    private long backoffBaseMillis;
+
+    @Value("${notifications.outbox.backoff-max-ms:600000}")
+    private long backoffMaxMillis;
+
+    @Value("${notifications.outbox.claim-lease-ms:120000}")
+    private long claimLeaseMillis;
+
+    /**
+     * Programa un despacho inmediato para cuando la transacción actual se confirme
+     */
+    public void dispatchAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    scheduleDispatch();
+                }
+            });
+        } else {
+            scheduleDispatch();
+        }
+    }
+
+    private void scheduleDispatch() {
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                dispatchScheduled.set(false);
+                dispatchPending();
+            }, coalesceWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Revisión periódica de reintentos vencidos. Se omite si ya hay un despacho en curso o en cola,
+     * para que un FCM lento no acumule tareas en el ejecutor.
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval-ms:5000}")
+    public void dispatchPendingScheduled() {
+        if (dispatching.get() || !dispatchScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            dispatchScheduled.set(false);
+            dispatchPending();
+        });
+    }
+
+    /**
+     * Envía los push pendientes en lotes; el agrupamiento por contenido lo hace el PushSender
+     */
+    public void dispatchPending() {
+        if (!dispatching.compareAndSet(false, true)) {
+            log.debug("Ya hay un despacho del outbox en curso");
+            return;
+        }
+        try {
+            List<NotificationOutbox> claimed;
+            while (!(claimed = claimBatch()).isEmpty()) {
+                sendBatch(claimed);
+                outboxRepository.saveAll(claimed);
+            }
+            tokenHealthService.pruneDeadTokens();
+        } catch (RuntimeException e) {
+            log.error("Error al despachar notificaciones pendientes del outbox", e);
+        } finally {
+            dispatching.set(false);
+        }
+    }
+
+    /**
+     * Reclama el siguiente lote: lo bloquea y aplaza su siguiente intento por la duración del préstamo,
+     * de modo que ningún otro despacho lo tome mientras se envía. Si el proceso cae a mitad del envío,
+     * las filas vuelven a estar disponibles al vencer el préstamo.
+     */
+    private List<NotificationOutbox> claimBatch() {
+        Instant now = Instant.now();
+        return transactionTemplate.execute(status -> {
+            List<NotificationOutbox> batch = outboxRepository.findTop500ByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    NotificationOutbox.OutboxStatus.PENDING, now);
+            Instant leaseUntil = now.plusMillis(claimLeaseMillis);
+            batch.forEach(entry -> entry.setNextAttemptAt(leaseUntil));
+            return batch;
+        });
+    }
+
+    private void sendBatch(List<NotificationOutbox> pending) {
+        // No se gastan envíos en tokens que ya se detectaron como muertos
+        List<NotificationOutbox> batch = new ArrayList<>();
+        for (NotificationOutbox entry : pending) {
+            if (tokenHealthService.isDead(entry.getFcmToken())) {
+                entry.setStatus(NotificationOutbox.OutboxStatus.FAILED);
+                entry.setLastError("TOKEN_PRUNED");
+            } else {
+                batch.add(entry);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<PushSender.PushMessage> messages = batch.stream()
+                .map(entry -> new PushSender.PushMessage(
+                        entry.getFcmToken(), entry.getTitle(), entry.getBody(), dataFor(entry)))
+                .toList();
+
+        List<PushSender.PushResult> results;
+        try {
+            results = pushSender.sendBatch(messages);
+        } catch (RuntimeException e) {
+            log.error("Error inesperado al enviar {} notificaciones push", messages.size(), e);
+            results = messages.stream()
+                    .map(message -> PushSender.PushResult.failed(message.token(), e.getClass().getSimpleName(), true))
+                    .toList();
+        }
+        // Los resultados del lote alimentan el registro de salud de tokens
+        tokenHealthService.recordAll(results);
+
+        Instant now = Instant.now();
+        for (int i = 0; i < batch.size(); i++) {
+            NotificationOutbox entry = batch.get(i);
+            PushSender.PushResult result = results.get(i);
+            entry.setAttempts(entry.getAttempts() + 1);
+            if (result.success()) {
+                entry.setStatus(NotificationOutbox.OutboxStatus.SENT);
+                entry.setSentAt(now);
+                entry.setLastError(null);
+            } else if (result.retryable() && entry.getAttempts() < maxAttempts) {
+                entry.setNextAttemptAt(now.plusMillis(backoffFor(entry.getAttempts())));
+                entry.setLastError(result.errorCode());
+            } else {
+                entry.setStatus(NotificationOutbox.OutboxStatus.FAILED);
+                entry.setLastError(result.errorCode());
+                log.warn("Push {} descartado tras {} intentos: {}", entry.getId(), entry.getAttempts(), result.errorCode());
+            }
+        }
+    }
+
+    private Map<String, String> dataFor(NotificationOutbox entry) {
+        Map<String, String> data = new HashMap<>();
+        data.put("type", entry.getType().name());
+        if (entry.getNotificationId() != null) {
+            data.put("notificationId", entry.getNotificationId().toString());
+        }
+        return data;
+    }
+
+    private long backoffFor(int attempts) {
+        long delay = backoffBaseMillis << Math.min(attempts - 1, 20);
+        return Math.min(delay, backoffMaxMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
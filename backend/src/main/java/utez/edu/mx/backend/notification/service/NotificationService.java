@@ -5,13 +5,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import utez.edu.mx.backend.User.model.User;
+import utez.edu.mx.backend.User.model.UserRepository;
+import utez.edu.mx.backend.notification.dto.NotificationRecipient;
 import utez.edu.mx.backend.notification.dto.NotificationDTO;
 import utez.edu.mx.backend.notification.model.Notification;
+import utez.edu.mx.backend.notification.model.NotificationOutbox;
+import utez.edu.mx.backend.notification.repository.NotificationOutboxRepository;
 import utez.edu.mx.backend.notification.repository.NotificationRepository;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -19,10 +21,13 @@ import java.util.Map;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final FCMService fcmService;
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationOutboxDispatcher outboxDispatcher;
+    private final UserRepository userRepository;
 
     /**
-     * Crea y envía una notificación a un usuario
+     * Crea y envía una notificación a un usuario.
+     * El push se encola en el outbox y se envía después del commit, fuera de la petición.
      */
     @Transactional
     public void createAndSendNotification(User user, String title, String body, Notification.NotificationType type) {
@@ -38,14 +43,17 @@ public class NotificationService {
         notificationRepository.save(notification);
         log.debug("Notificación guardada en la base de datos con ID: {}", notification.getId());
 
-        // Enviar notificación push si el usuario tiene FCM token
+        // Encolar notificación push si el usuario tiene FCM token
         if (user.getFcmToken() != null && !user.getFcmToken().isEmpty()) {
-            Map<String, String> data = new HashMap<>();
-            data.put("type", type.name());
-            data.put("notificationId", notification.getId().toString());
-
-            fcmService.sendNotification(user.getFcmToken(), title, body, data);
-            log.info("Notificación push enviada a: {}", user.getEmail());
+            outboxRepository.save(NotificationOutbox.builder()
+                    .fcmToken(user.getFcmToken())
+                    .title(title)
+                    .body(body)
+                    .type(type)
+                    .notificationId(notification.getId())
+                    .build());
+            outboxDispatcher.dispatchAfterCommit();
+            log.info("Notificación push encolada para: {}", user.getEmail());
         } else {
             log.warn("El usuario {} no tiene un token FCM, no se envió la notificación push.", user.getEmail());
         }
@@ -70,23 +78,64 @@ public class NotificationService {
         notificationRepository.saveAll(notifications);
         log.debug("{} notificaciones guardadas en la base de datos.", notifications.size());
 
-        // Enviar notificaciones push
-        List<String> fcmTokens = users.stream()
+        // Encolar notificaciones push
+        List<NotificationOutbox> pushes = users.stream()
                 .map(User::getFcmToken)
                 .filter(token -> token != null && !token.isEmpty())
+                .map(token -> NotificationOutbox.builder()
+                        .fcmToken(token)
+                        .title(title)
+                        .body(body)
+                        .type(type)
+                        .build())
                 .toList();
 
-        if (!fcmTokens.isEmpty()) {
-            Map<String, String> data = new HashMap<>();
-            data.put("type", type.name());
-
-            fcmService.sendNotificationToMultiple(fcmTokens, title, body, data);
-            log.info("Notificaciones push enviadas a {} usuarios.", fcmTokens.size());
+        if (!pushes.isEmpty()) {
+            outboxRepository.saveAll(pushes);
+            outboxDispatcher.dispatchAfterCommit();
+            log.info("Notificaciones push encoladas para {} usuarios.", pushes.size());
         } else {
             log.warn("Ninguno de los usuarios tiene un token FCM, no se enviaron notificaciones push.");
         }
     }
 
+    /**
+     * Crea y envía notificaciones a destinatarios ya resueltos (por ejemplo, desde AdminRecipientCache)
+     * sin cargar las entidades User
+     */
+    @Transactional
+    public void createAndSendNotificationToRecipients(List<NotificationRecipient> recipients, String title, String body,
+                                                      Notification.NotificationType type) {
+        log.info("Creando notificación para {} destinatarios con título: {}", recipients.size(), title);
+        List<Notification> notifications = recipients.stream()
+                .map(recipient -> Notification.builder()
+                        .user(userRepository.getReferenceById(recipient.userId()))
+                        .title(title)
+                        .body(body)
+                        .type(type)
+                        .isRead(false)
+                        .build())
+                .toList();
+        notificationRepository.saveAll(notifications);
+
+        List<NotificationOutbox> pushes = recipients.stream()
+                .map(NotificationRecipient::fcmToken)
+                .filter(token -> token != null && !token.isEmpty())
+                .map(token -> NotificationOutbox.builder()
+                        .fcmToken(token)
+                        .title(title)
+                        .body(body)
+                        .type(type)
+                        .build())
+                .toList();
+
+        if (!pushes.isEmpty()) {
+            outboxRepository.saveAll(pushes);
+            outboxDispatcher.dispatchAfterCommit();
+            log.info("Notificaciones push encoladas para {} destinatarios.", pushes.size());
+        }
+    }
+
     /**
      * Obtiene todas las notificaciones de un usuario
      */
@@ -0,0 +1,29 @@
+package utez.edu.mx.backend.notification.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canal de envío de notificaciones push. En producción lo implementa FCMService;
+ * con notifications.push.sender=log se usa LoggingPushSender (pruebas y desarrollo local).
+ */
+public interface PushSender {
+
+    /**
+     * Envía un lote de mensajes y devuelve un resultado por mensaje, en el mismo orden
+     */
+    List<PushResult> sendBatch(List<PushMessage> messages);
+
+    record PushMessage(String token, String title, String body, Map<String, String> data) {
+    }
+
+    record PushResult(String token, boolean success, String errorCode, boolean retryable) {
+        public static PushResult ok(String token) {
+            return new PushResult(token, true, null, false);
+        }
+
+        public static PushResult failed(String token, String errorCode, boolean retryable) {
+            return new PushResult(token, false, errorCode, retryable);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package utez.edu.mx.backend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IdempotencyStoreTest {
+
+    private static final IdempotencyStore.StoredResponse OK =
+            new IdempotencyStore.StoredResponse(201, "application/json", new byte[0]);
+
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "maxSize", 4);
+        ReflectionTestUtils.setField(store, "maxPerUser", 2);
+        ReflectionTestUtils.setField(store, "ttlMillis", 60_000L);
+    }
+
+    @Test
+    void userOverItsCapOnlyDisplacesItsOwnCompletedResponses() {
+        store.reserve(2L, "other", "f");
+        store.complete(2L, "other", OK);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(IdempotencyStore.Reservation.Status.RESERVED, store.reserve(1L, "key-" + i, "f").status());
+            store.complete(1L, "key-" + i, OK);
+        }
+
+        assertEquals(IdempotencyStore.Reservation.Status.EXISTING, store.reserve(2L, "other", "f").status());
+        assertEquals(IdempotencyStore.Reservation.Status.EXISTING, store.reserve(1L, "key-9", "f").status());
+        assertEquals(IdempotencyStore.Reservation.Status.RESERVED, store.reserve(1L, "key-0", "f").status());
+    }
+
+    @Test
+    void fullStoreEvictsOldestCompletedInsteadOfRefusingKeys() {
+        for (long user = 1; user <= 4; user++) {
+            store.reserve(user, "key", "f");
+            store.complete(user, "key", OK);
+        }
+
+        assertEquals(IdempotencyStore.Reservation.Status.RESERVED, store.reserve(5L, "key", "f").status());
+        assertEquals(IdempotencyStore.Reservation.Status.RESERVED, store.reserve(1L, "key", "f").status());
+        assertEquals(IdempotencyStore.Reservation.Status.EXISTING, store.reserve(4L, "key", "f").status());
+    }
+
+    @Test
+    void inFlightReservationsAreNeverEvicted() {
+        store.reserve(1L, "a", "f");
+        store.reserve(1L, "b", "f");
+
+        assertEquals(IdempotencyStore.Reservation.Status.NOT_RESERVED, store.reserve(1L, "c", "f").status());
+        assertEquals(IdempotencyStore.Reservation.Status.EXISTING, store.reserve(1L, "a", "f").status());
+    }
+}
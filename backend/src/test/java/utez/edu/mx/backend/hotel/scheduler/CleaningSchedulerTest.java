@@ -0,0 +1,92 @@
+package utez.edu.mx.backend.hotel.scheduler;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import utez.edu.mx.backend.hotel.model.Room;
+import utez.edu.mx.backend.hotel.repository.RoomRepository;
+import utez.edu.mx.backend.hotel.service.CollectionVersionService;
+import utez.edu.mx.backend.hotel.service.RoomChangeTracker;
+import utez.edu.mx.backend.hotel.service.RoomEventService;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({CleaningScheduler.class, CollectionVersionService.class})
+class CleaningSchedulerTest {
+
+    private static final LocalTime SCHEDULE = LocalTime.of(8, 0);
+
+    @Autowired
+    private CleaningScheduler cleaningScheduler;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private RoomEventService roomEventService;
+
+    @MockitoBean
+    private RoomChangeTracker roomChangeTracker;
+
+    @Test
+    void markDueRoomsUpdatesAndPublishesOnlyTheDueRooms() {
+        Instant deadline = LocalDate.now().atTime(SCHEDULE).atZone(ZoneId.systemDefault()).toInstant();
+        Instant now = deadline.plus(1, ChronoUnit.MINUTES);
+
+        Room due = room("101", Room.RoomStatus.EN_USO, deadline.minus(1, ChronoUnit.DAYS));
+        Room cleanedAfterDeadline = room("102", Room.RoomStatus.LIMPIA, deadline.plusSeconds(30));
+        Room blocked = room("103", Room.RoomStatus.BLOQUEADA_INCIDENCIA, deadline.minus(1, ChronoUnit.DAYS));
+        // Cambió a PENDIENTE_LIMPIEZA en el mismo instante por otro camino: no debe publicarse
+        Room sameInstant = room("104", Room.RoomStatus.PENDIENTE_LIMPIEZA, now);
+        entityManager.flush();
+        when(roomChangeTracker.nextVersion()).thenReturn(7L);
+
+        int updated = cleaningScheduler.markDueRooms(Map.of(deadline, Map.of(SCHEDULE,
+                List.of(due.getId(), cleanedAfterDeadline.getId(), blocked.getId(), sameInstant.getId()))), now);
+
+        assertEquals(1, updated);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<RoomRepository.RoomSummary>> published = ArgumentCaptor.forClass(List.class);
+        verify(roomEventService).publish(published.capture(), eq(Room.RoomStatus.PENDIENTE_LIMPIEZA), any(Instant.class));
+        assertEquals(List.of(due.getId()), published.getValue().stream().map(RoomRepository.RoomSummary::getId).toList());
+
+        assertEquals(Room.RoomStatus.PENDIENTE_LIMPIEZA, roomRepository.findById(due.getId()).orElseThrow().getCurrentStatus());
+        assertEquals(7L, roomRepository.findById(due.getId()).orElseThrow().getChangeVersion());
+        assertEquals(Room.RoomStatus.LIMPIA,
+                roomRepository.findById(cleanedAfterDeadline.getId()).orElseThrow().getCurrentStatus());
+    }
+
+    private Room room(String number, Room.RoomStatus status, Instant lastStatusChange) {
+        Room room = Room.builder()
+                .roomNumber("HTL-1-" + number)
+                .floor("1")
+                .currentStatus(status)
+                .scheduledCleaningTime(SCHEDULE)
+                .lastStatusChange(lastStatusChange)
+                .build();
+        entityManager.persist(room);
+        return room;
+    }
+}
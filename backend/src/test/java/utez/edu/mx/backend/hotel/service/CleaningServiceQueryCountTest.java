@@ -0,0 +1,113 @@
+package utez.edu.mx.backend.hotel.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import utez.edu.mx.backend.User.model.User;
+import utez.edu.mx.backend.hotel.dto.CleaningResponse;
+import utez.edu.mx.backend.hotel.model.Cleaning;
+import utez.edu.mx.backend.hotel.model.Room;
+import utez.edu.mx.backend.hotel.scheduler.CleaningDeadlineScheduler;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fija el número de sentencias del listado de limpiezas por rango de fechas: una sola consulta
+ * con habitación y usuario, sin importar cuántas limpiezas haya.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({CleaningService.class, CollectionVersionService.class})
+class CleaningServiceQueryCountTest {
+
+    private static final Instant START = Instant.parse("2026-01-10T00:00:00Z");
+
+    @Autowired
+    private CleaningService cleaningService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private CleaningDeadlineScheduler cleaningDeadlineScheduler;
+
+    @MockitoBean
+    private RoomEventService roomEventService;
+
+    @MockitoBean
+    private RoomChangeTracker roomChangeTracker;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getCleaningsByDateRangeUsesOneStatementRegardlessOfSize() {
+        Instant end = START.plus(1, ChronoUnit.DAYS);
+        createCleanings(3);
+        assertEquals(1, countStatements(() ->
+                assertEquals(3, cleaningService.getCleaningsByDateRange(START, end).size())));
+
+        createCleanings(20);
+        assertEquals(1, countStatements(() -> {
+            List<CleaningResponse> cleanings = cleaningService.getCleaningsByDateRange(START, end);
+            assertEquals(23, cleanings.size());
+            assertEquals(23, cleanings.stream().map(CleaningResponse::roomNumber).distinct().count());
+        }));
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Cada limpieza en su propia habitación y con su propia camarera, dentro del rango consultado
+     */
+    private void createCleanings(int cleanings) {
+        for (int i = 0; i < cleanings; i++) {
+            long suffix = System.nanoTime();
+            User user = User.builder()
+                    .name("Camarera " + suffix)
+                    .email("camarera" + suffix + "@hotel.test")
+                    .password("secreto")
+                    .role(User.Role.CAMARERA)
+                    .status(true)
+                    .build();
+            entityManager.persist(user);
+
+            Room room = Room.builder()
+                    .roomNumber("HTL-3-" + suffix)
+                    .floor("3")
+                    .build();
+            entityManager.persist(room);
+
+            entityManager.persist(Cleaning.builder()
+                    .room(room)
+                    .cleanedByUser(user)
+                    .cleaningDatetime(START.plus(i + 1, ChronoUnit.MINUTES))
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package utez.edu.mx.backend.hotel.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import utez.edu.mx.backend.User.model.User;
+import utez.edu.mx.backend.hotel.dto.IncidentResponse;
+import utez.edu.mx.backend.hotel.model.Incident;
+import utez.edu.mx.backend.hotel.model.IncidentPhoto;
+import utez.edu.mx.backend.hotel.model.Room;
+import utez.edu.mx.backend.notification.service.AdminRecipientCache;
+import utez.edu.mx.backend.notification.service.NotificationService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fija el número de sentencias de los listados de incidencias: una para las filas
+ * y una para las fotos, sin importar cuántas incidencias o fotos haya.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({IncidentService.class, CollectionVersionService.class})
+class IncidentServiceQueryCountTest {
+
+    @Autowired
+    private IncidentService incidentService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private AdminRecipientCache adminRecipientCache;
+
+    @MockitoBean
+    private FileStorageService fileStorageService;
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    @MockitoBean
+    private RoomEventService roomEventService;
+
+    @MockitoBean
+    private RoomChangeTracker roomChangeTracker;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getAllIncidentsUsesTwoStatementsRegardlessOfSize() {
+        createIncidents(3, 2);
+        assertEquals(2, countStatements(() -> assertEquals(3, incidentService.getAllIncidents().size())));
+
+        createIncidents(20, 3);
+        assertEquals(2, countStatements(() -> {
+            List<IncidentResponse> incidents = incidentService.getAllIncidents();
+            assertEquals(23, incidents.size());
+            assertEquals(66, incidents.stream().mapToInt(incident -> incident.photoUrls().size()).sum());
+        }));
+    }
+
+    @Test
+    void getIncidentsByRoomUsesTwoStatements() {
+        Room room = createIncidents(5, 4);
+        assertEquals(2, countStatements(() -> assertEquals(5, incidentService.getIncidentsByRoom(room.getId()).size())));
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Room createIncidents(int incidents, int photosPerIncident) {
+        User user = User.builder()
+                .name("Camarera")
+                .email("camarera" + System.nanoTime() + "@hotel.test")
+                .password("secreto")
+                .role(User.Role.CAMARERA)
+                .status(true)
+                .build();
+        entityManager.persist(user);
+
+        Room room = Room.builder()
+                .roomNumber("HTL-1-" + System.nanoTime() % 1000)
+                .floor("1")
+                .build();
+        entityManager.persist(room);
+
+        for (int i = 0; i < incidents; i++) {
+            Incident incident = Incident.builder()
+                    .room(room)
+                    .reportedByUser(user)
+                    .title("Incidencia " + i)
+                    .build();
+            entityManager.persist(incident);
+            for (int p = 0; p < photosPerIncident; p++) {
+                entityManager.persist(IncidentPhoto.builder()
+                        .incident(incident)
+                        .photoUrl("HTL-1/ab/cd/foto-" + i + "-" + p + ".jpg")
+                        .build());
+            }
+        }
+        return room;
+    }
+}
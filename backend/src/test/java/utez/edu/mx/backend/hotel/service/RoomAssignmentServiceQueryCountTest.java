@@ -0,0 +1,117 @@
+package utez.edu.mx.backend.hotel.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import utez.edu.mx.backend.User.model.User;
+import utez.edu.mx.backend.hotel.dto.RoomAssignmentResponse;
+import utez.edu.mx.backend.hotel.model.Room;
+import utez.edu.mx.backend.hotel.model.RoomAssignment;
+import utez.edu.mx.backend.hotel.repository.RoomAssignmentBatchRepository;
+import utez.edu.mx.backend.notification.service.NotificationService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fija el número de sentencias de los listados de asignaciones activas: una sola consulta
+ * con habitación y usuario, sin importar cuántas asignaciones o camareras haya.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({RoomAssignmentService.class, CollectionVersionService.class})
+class RoomAssignmentServiceQueryCountTest {
+
+    @Autowired
+    private RoomAssignmentService roomAssignmentService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private RoomAssignmentBatchRepository roomAssignmentBatchRepository;
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getAllActiveAssignmentsUsesOneStatementRegardlessOfSize() {
+        createAssignments(3);
+        assertEquals(1, countStatements(() ->
+                assertEquals(3, roomAssignmentService.getAllActiveAssignments().size())));
+
+        createAssignments(20);
+        assertEquals(1, countStatements(() -> {
+            List<RoomAssignmentResponse> assignments = roomAssignmentService.getAllActiveAssignments();
+            assertEquals(23, assignments.size());
+            assertEquals(23, assignments.stream().map(RoomAssignmentResponse::userName).distinct().count());
+        }));
+    }
+
+    @Test
+    void getAssignmentsByUserIdUsesOneStatement() {
+        List<User> users = createAssignments(5);
+        assertEquals(1, countStatements(() ->
+                assertEquals(1, roomAssignmentService.getAssignmentsByUserId(users.get(0).getId()).size())));
+    }
+
+    private long countStatements(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Una camarera distinta por asignación, cada una en su propia habitación pendiente de limpieza
+     */
+    private List<User> createAssignments(int assignments) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < assignments; i++) {
+            long suffix = System.nanoTime();
+            User user = User.builder()
+                    .name("Camarera " + suffix)
+                    .email("camarera" + suffix + "@hotel.test")
+                    .password("secreto")
+                    .role(User.Role.CAMARERA)
+                    .status(true)
+                    .build();
+            entityManager.persist(user);
+            users.add(user);
+
+            Room room = Room.builder()
+                    .roomNumber("HTL-2-" + suffix)
+                    .floor("2")
+                    .currentStatus(Room.RoomStatus.PENDIENTE_LIMPIEZA)
+                    .build();
+            entityManager.persist(room);
+
+            entityManager.persist(RoomAssignment.builder()
+                    .room(room)
+                    .user(user)
+                    .build());
+        }
+        return users;
+    }
+}
@@ -0,0 +1,79 @@
+package utez.edu.mx.backend.notification.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import utez.edu.mx.backend.hotel.service.CollectionVersionService;
+import utez.edu.mx.backend.notification.model.Notification;
+import utez.edu.mx.backend.notification.model.NotificationOutbox;
+import utez.edu.mx.backend.notification.repository.NotificationOutboxRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({NotificationOutboxDispatcher.class, CollectionVersionService.class})
+class NotificationOutboxDispatcherTest {
+
+    @Autowired
+    private NotificationOutboxDispatcher dispatcher;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @MockitoBean
+    private PushSender pushSender;
+
+    @MockitoBean
+    private FcmTokenHealthService tokenHealthService;
+
+    @Test
+    void sentRowsAreNotSentAgain() {
+        NotificationOutbox entry = outboxRepository.save(pending("token-ok"));
+        when(pushSender.sendBatch(anyList())).thenReturn(List.of(PushSender.PushResult.ok("token-ok")));
+
+        dispatcher.dispatchPending();
+        dispatcher.dispatchPending();
+
+        verify(pushSender, times(1)).sendBatch(anyList());
+        verify(tokenHealthService).recordAll(List.of(PushSender.PushResult.ok("token-ok")));
+        NotificationOutbox sent = outboxRepository.findById(entry.getId()).orElseThrow();
+        assertEquals(NotificationOutbox.OutboxStatus.SENT, sent.getStatus());
+        assertEquals(1, sent.getAttempts());
+    }
+
+    @Test
+    void retryableFailureIsPostponedInsteadOfResentInTheSameRun() {
+        NotificationOutbox entry = outboxRepository.save(pending("token-slow"));
+        when(pushSender.sendBatch(anyList()))
+                .thenReturn(List.of(PushSender.PushResult.failed("token-slow", "UNAVAILABLE", true)));
+
+        dispatcher.dispatchPending();
+
+        verify(pushSender, times(1)).sendBatch(anyList());
+        NotificationOutbox retry = outboxRepository.findById(entry.getId()).orElseThrow();
+        assertEquals(NotificationOutbox.OutboxStatus.PENDING, retry.getStatus());
+        assertTrue(retry.getNextAttemptAt().isAfter(Instant.now()));
+    }
+
+    private NotificationOutbox pending(String token) {
+        return NotificationOutbox.builder()
+                .fcmToken(token)
+                .title("Nueva incidencia")
+                .body("Habitación 101")
+                .type(Notification.NotificationType.INCIDENT)
+                .nextAttemptAt(Instant.now().minusSeconds(1))
+                .build();
+    }
+}